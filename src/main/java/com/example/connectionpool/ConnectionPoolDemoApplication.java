@@ -1,12 +1,24 @@
 package com.example.connectionpool;
 
+import com.example.connectionpool.service.AdmissionControlledDataSource;
+import com.example.connectionpool.service.BulkheadDataSource;
+import com.example.connectionpool.service.ConnectionBulkheads;
+import com.example.connectionpool.service.ConnectionHoldTimeTracker;
+import com.example.connectionpool.service.DatabaseAdmissionLimiter;
+import com.example.connectionpool.service.HoldTimeTrackingDataSource;
+import com.example.connectionpool.service.HttpClientPool;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import javax.sql.DataSource;
 import java.util.concurrent.*;
 
 @SpringBootApplication
@@ -17,9 +29,43 @@ public class ConnectionPoolDemoApplication {
         SpringApplication.run(ConnectionPoolDemoApplication.class, args);
     }
 
+    /**
+     * RestTemplate on the pooled keep-alive HTTP client, with its per-route limits and timeouts
+     * (GET /api/monitoring/http-client)
+     */
+    @Bean
+    public RestTemplate restTemplate(HttpClientPool httpClientPool) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClientPool.getHttpClient()));
+    }
+
+    /**
+     * Wraps every Hikari pool in admission control (hikari.admission.enabled), then per-endpoint
+     * bulkheads (hikari.bulkhead.enabled) and, outermost, hold-time tracking, so each borrowed
+     * connection reports its acquisition wait (bulkhead and admission queue included), hold time
+     * and calling service method (GET /api/monitoring/hikari/holdtimes)
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public static BeanPostProcessor hikariPoolWrappingPostProcessor(ObjectProvider<ConnectionHoldTimeTracker> tracker,
+                                                                    ObjectProvider<DatabaseAdmissionLimiter> admissionLimiter,
+                                                                    ObjectProvider<ConnectionBulkheads> bulkheads) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                String poolName = hikari.getPoolName() != null ? hikari.getPoolName() : beanName;
+                DatabaseAdmissionLimiter limiter = admissionLimiter.getObject();
+                DataSource admitted = limiter.isEnabled()
+                        ? new AdmissionControlledDataSource(hikari, limiter.gate(poolName, hikari))
+                        : hikari;
+                ConnectionBulkheads connectionBulkheads = bulkheads.getObject();
+                DataSource limited = connectionBulkheads.isEnabled()
+                        ? new BulkheadDataSource(admitted, poolName, connectionBulkheads)
+                        : admitted;
+                return new HoldTimeTrackingDataSource(limited, poolName, tracker.getObject());
+            }
+        };
     }
 
     /**
@@ -47,6 +93,7 @@ public class ConnectionPoolDemoApplication {
         executor.setMaxPoolSize(20);
         executor.setQueueCapacity(50);
         executor.setThreadNamePrefix("async-");
+        executor.setTaskDecorator(ConnectionBulkheads::propagate);
         executor.initialize();
         return executor;
 
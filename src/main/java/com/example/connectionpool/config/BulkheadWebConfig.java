@@ -0,0 +1,50 @@
+package com.example.connectionpool.config;
+
+import com.example.connectionpool.service.ConnectionBulkheads;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binds the handler method of each request ("ProductController.getProductById") to the request
+ * thread, which is the key ConnectionBulkheads looks quotas up by.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BulkheadWebConfig implements WebMvcConfigurer {
+
+    private final ConnectionBulkheads connectionBulkheads;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (connectionBulkheads.isEnabled()) {
+            registry.addInterceptor(new BulkheadInterceptor());
+        }
+    }
+
+    private static final class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (handler instanceof HandlerMethod method) {
+                ConnectionBulkheads.enter(method.getBeanType().getSimpleName() + '.' + method.getMethod().getName());
+            }
+            return true;
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            ConnectionBulkheads.exit();
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            ConnectionBulkheads.exit();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.connectionpool.config;
+
+import com.example.connectionpool.service.StartupWarmup;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Times product API requests for StartupWarmup, which keeps the first ones after the warm-up.
+ * Asynchronous requests (the v2 endpoints) are timed until the async response completes.
+ */
+@Component
+@RequiredArgsConstructor
+public class FirstRequestTimingFilter extends OncePerRequestFilter {
+
+    private static final String PRODUCT_API = "/api/products";
+
+    private final StartupWarmup startupWarmup;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(PRODUCT_API);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        startupWarmup.recordRequest(System.nanoTime() - start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                startupWarmup.recordRequest(System.nanoTime() - start);
+            }
+        }
+    }
+}
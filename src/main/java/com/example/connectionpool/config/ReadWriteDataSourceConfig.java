@@ -0,0 +1,73 @@
+package com.example.connectionpool.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Separate Hikari pools for reads and writes (hikari.routing.enabled=true).
+ *
+ * Both pools connect to spring.datasource.url and start from the spring.datasource.hikari settings;
+ * hikari.write-pool.* and hikari.read-pool.* override them per pool. The primary DataSource that JPA,
+ * JdbcTemplate and spring.sql.init use is a LazyConnectionDataSourceProxy over the routing DataSource,
+ * so a burst of read-only transactions can exhaust the read pool without touching the write pool.
+ * Without the property Spring Boot creates its usual single pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hikari.routing.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    public HikariDataSource writeDataSource(DataSourceProperties properties, Environment environment) {
+        return createPool(properties, environment, "hikari.write-pool");
+    }
+
+    @Bean
+    public HikariDataSource readDataSource(DataSourceProperties properties, Environment environment) {
+        return createPool(properties, environment, "hikari.read-pool");
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                                        @Qualifier("readDataSource") DataSource readDataSource) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.WRITE, writeDataSource,
+                ReadWriteRoutingDataSource.READ, readDataSource));
+        routingDataSource.setDefaultTargetDataSource(writeDataSource);
+        return routingDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Builds and starts one pool, so both are filled to minimumIdle before the first request
+     */
+    private static HikariDataSource createPool(DataSourceProperties properties, Environment environment, String prefix) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(properties.determineUrl());
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        binder.bind(prefix, Bindable.ofInstance(config));
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.connectionpool.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends connections borrowed inside a @Transactional(readOnly = true) method to the read pool and
+ * everything else (write transactions, non-transactional JDBC) to the write pool.
+ *
+ * Spring only marks the transaction read-only after the transaction manager has begun it, so this
+ * must sit behind a LazyConnectionDataSourceProxy: the physical connection, and with it the routing
+ * decision, is then taken on the first statement instead of at transaction begin.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+
+    private final LongAdder readRoutes = new LongAdder();
+    private final LongAdder writeRoutes = new LongAdder();
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readRoutes.increment();
+            return READ;
+        }
+        writeRoutes.increment();
+        return WRITE;
+    }
+
+    /**
+     * How many connections were routed to each pool
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("readRoutes", readRoutes.sum());
+        stats.put("writeRoutes", writeRoutes.sum());
+        return stats;
+    }
+}
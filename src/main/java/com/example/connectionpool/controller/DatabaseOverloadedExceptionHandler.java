@@ -0,0 +1,42 @@
+package com.example.connectionpool.controller;
+
+import com.example.connectionpool.exception.BulkheadFullException;
+import com.example.connectionpool.exception.DatabaseOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Answers requests shed by DB admission control or a full connection bulkhead with 503 Service Unavailable and Retry-After.
+ *
+ * The exception usually arrives wrapped by JPA or JdbcTemplate; Spring MVC matches handlers
+ * against the whole cause chain, so the wrapper does not need unwrapping here.
+ */
+@RestControllerAdvice
+@Slf4j
+public class DatabaseOverloadedExceptionHandler {
+
+    @ExceptionHandler(DatabaseOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleOverloaded(DatabaseOverloadedException e) {
+        log.debug("Request shed: {}", e.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Database overloaded, retry later");
+        body.put("pool", e.getPool());
+        body.put("reason", e.getReason());
+        if (e instanceof BulkheadFullException bulkheadFull) {
+            body.put("bulkhead", bulkheadFull.getBulkhead());
+        }
+        body.put("retryAfterSeconds", e.getRetryAfterSeconds());
+        body.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(body);
+    }
+}
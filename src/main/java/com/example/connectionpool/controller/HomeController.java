@@ -55,10 +55,16 @@ public class HomeController {
         List<Map<String, String>> productOperations = Arrays.asList(
             createEndpointInfo("POST", "/api/products/{id}/process", "Process product (DB + External API + Update)", "Main endpoint for testing connection pool behavior"),
             createEndpointInfo("POST", "/api/products", "Create new product", "Body: ProductRequest with name, description, price, stockQuantity"),
+            createEndpointInfo("POST", "/api/products/bulk", "Bulk create products (JDBC batch)", "Body: JSON array of ProductRequest; reports rows/sec"),
             createEndpointInfo("GET", "/api/products", "Get all products", "Returns list of all products"),
+            createEndpointInfo("GET", "/api/products", "Stream all products (NDJSON)", "Send Accept: application/x-ndjson to stream one product per line"),
+            createEndpointInfo("GET", "/api/products/page", "Get products page (keyset)", "Params: limit, after (cursor), sort=id|price"),
+            createEndpointInfo("GET", "/api/products/batch", "Get products by IDs (one query)", "Param: ids=1,2,3"),
             createEndpointInfo("GET", "/api/products/{id}", "Get product by ID", "Includes mock API call with configurable delay"),
             createEndpointInfo("GET", "/api/products/v2/{id}", "Get product by ID (Async)", "Non-blocking version that releases DB connection immediately"),
             createEndpointInfo("DELETE", "/api/products/{id}", "Delete product", "Removes product by ID"),
+            createEndpointInfo("GET", "/api/sharded/products/{id}", "Get product by ID (sharded)", "Single-shard lookup; needs the sharded profile"),
+            createEndpointInfo("GET", "/api/sharded/products/under-price", "Products under price (sharded)", "Param: maxPrice; scatter-gather over all shards"),
             createEndpointInfo("GET", "/api/products/health", "Product API health check", "Returns API status")
         );
         productEndpoints.put("operations", productOperations);
@@ -90,6 +96,14 @@ public class HomeController {
             createEndpointInfo("GET", "/api/monitoring/hikari", "Get HikariCP metrics", "Returns current connection pool statistics"),
             createEndpointInfo("GET", "/api/monitoring/hikari/details", "Get detailed HikariCP info", "Returns comprehensive pool configuration and status"),
             createEndpointInfo("GET", "/api/monitoring/hikari/status", "Get pool status", "Returns simple pool status information"),
+            createEndpointInfo("GET", "/api/monitoring/hikari/pools", "Get all pools", "Returns read and write pool state and routing counts"),
+            createEndpointInfo("GET", "/api/monitoring/hikari/autosize", "Adaptive pool sizing", "Returns auto-sizing bounds, last sample and decision history"),
+            createEndpointInfo("GET", "/api/monitoring/hikari/admission", "DB admission control", "Returns queue depth, queue time and shed counts per pool"),
+            createEndpointInfo("GET", "/api/monitoring/hikari/bulkheads", "Connection bulkheads", "Returns quota, in-use connections and rejections per endpoint"),
+            createEndpointInfo("GET", "/api/monitoring/http-client", "HTTP client pool", "Returns leased, available and pending outbound connections per route"),
+            createEndpointInfo("GET", "/api/monitoring/warmup", "Startup warm-up", "Returns pool fill, cold vs warmed latency per operation and first-request latency"),
+            createEndpointInfo("GET", "/api/monitoring/hikari/shards", "Product shards", "Returns pool state, rows and query latency per shard (sharded profile)"),
+            createEndpointInfo("GET", "/api/monitoring/hikari/holdtimes", "Connection hold times", "Returns acquisition and hold-time histograms per calling service method"),
             createEndpointInfo("GET", "/api/monitoring/hikari/stream", "Real-time metrics stream", "Server-Sent Events stream for live monitoring"),
             createEndpointInfo("GET", "/api/monitoring/health", "Monitoring API health check", "Returns API status")
         );
@@ -289,10 +303,16 @@ public class HomeController {
         
         addEndpoint(html, "POST", "/api/products/{id}/process", "Process product (DB + External API + Update)", "Main endpoint for testing connection pool behavior");
         addEndpoint(html, "POST", "/api/products", "Create new product", "Body: ProductRequest with name, description, price, stockQuantity");
+        addEndpoint(html, "POST", "/api/products/bulk", "Bulk create products (JDBC batch)", "Body: JSON array of ProductRequest; reports rows/sec");
         addEndpoint(html, "GET", "/api/products", "Get all products", "Returns list of all products");
+        addEndpoint(html, "GET", "/api/products", "Stream all products (NDJSON)", "Send Accept: application/x-ndjson to stream one product per line");
+        addEndpoint(html, "GET", "/api/products/page", "Get products page (keyset)", "Params: limit, after (cursor), sort=id|price");
+        addEndpoint(html, "GET", "/api/products/batch", "Get products by IDs (one query)", "Param: ids=1,2,3");
         addEndpoint(html, "GET", "/api/products/{id}", "Get product by ID", "Includes mock API call with configurable delay");
         addEndpoint(html, "GET", "/api/products/v2/{id}", "Get product by ID (Async)", "Non-blocking version that releases DB connection immediately");
         addEndpoint(html, "DELETE", "/api/products/{id}", "Delete product", "Removes product by ID");
+        addEndpoint(html, "GET", "/api/sharded/products/{id}", "Get product by ID (sharded)", "Single-shard lookup; needs the sharded profile");
+        addEndpoint(html, "GET", "/api/sharded/products/under-price", "Products under price (sharded)", "Param: maxPrice; scatter-gather over all shards");
         addEndpoint(html, "GET", "/api/products/health", "Health check", "Returns API status");
         
         html.append("                </div>\n");
@@ -334,6 +354,14 @@ public class HomeController {
         addEndpoint(html, "GET", "/api/monitoring/hikari", "Get HikariCP metrics", "Returns current connection pool statistics");
         addEndpoint(html, "GET", "/api/monitoring/hikari/details", "Get detailed HikariCP info", "Returns comprehensive pool configuration and status");
         addEndpoint(html, "GET", "/api/monitoring/hikari/status", "Get pool status", "Returns simple pool status information");
+        addEndpoint(html, "GET", "/api/monitoring/hikari/pools", "Get all pools", "Returns read and write pool state and routing counts");
+        addEndpoint(html, "GET", "/api/monitoring/hikari/autosize", "Adaptive pool sizing", "Returns auto-sizing bounds, last sample and decision history");
+        addEndpoint(html, "GET", "/api/monitoring/hikari/admission", "DB admission control", "Returns queue depth, queue time and shed counts per pool");
+        addEndpoint(html, "GET", "/api/monitoring/hikari/bulkheads", "Connection bulkheads", "Returns quota, in-use connections and rejections per endpoint");
+        addEndpoint(html, "GET", "/api/monitoring/http-client", "HTTP client pool", "Returns leased, available and pending outbound connections per route");
+        addEndpoint(html, "GET", "/api/monitoring/warmup", "Startup warm-up", "Returns pool fill, cold vs warmed latency per operation and first-request latency");
+        addEndpoint(html, "GET", "/api/monitoring/hikari/shards", "Product shards", "Returns pool state, rows and query latency per shard (sharded profile)");
+        addEndpoint(html, "GET", "/api/monitoring/hikari/holdtimes", "Connection hold times", "Returns acquisition and hold-time histograms per calling service method");
         addEndpoint(html, "GET", "/api/monitoring/hikari/stream", "Real-time metrics stream", "Server-Sent Events stream for live monitoring");
         addEndpoint(html, "GET", "/api/monitoring/health", "Health check", "Returns API status");
         
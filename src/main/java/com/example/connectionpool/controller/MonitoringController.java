@@ -1,25 +1,38 @@
 package com.example.connectionpool.controller;
 
+import com.example.connectionpool.config.ReadWriteRoutingDataSource;
 import com.example.connectionpool.dto.ConnectionPoolInfo;
+import com.example.connectionpool.service.ConnectionHoldTimeTracker;
+import com.example.connectionpool.repository.ShardedProductRepository;
+import com.example.connectionpool.service.ConnectionBulkheads;
+import com.example.connectionpool.service.DatabaseAdmissionLimiter;
+import com.example.connectionpool.service.HikariPoolAutoSizer;
+import com.example.connectionpool.service.HikariPools;
+import com.example.connectionpool.service.HttpClientPool;
+import com.example.connectionpool.service.StartupWarmup;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import javax.sql.DataSource;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/monitoring")
@@ -27,12 +40,21 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class MonitoringController {
 
-    private final DataSource dataSource;
+    private final HikariPools hikariPools;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+    private final ObjectProvider<ShardedProductRepository> shardedProductRepository;
+    private final HikariPoolAutoSizer hikariPoolAutoSizer;
+    private final ConnectionHoldTimeTracker connectionHoldTimeTracker;
+    private final DatabaseAdmissionLimiter databaseAdmissionLimiter;
+    private final ConnectionBulkheads connectionBulkheads;
+    private final StartupWarmup startupWarmup;
+    private final HttpClientPool httpClientPool;
     private final CopyOnWriteArrayList<SseEmitter> emitters = new CopyOnWriteArrayList<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
     /**
      * Get HikariCP connection pool metrics
+     * Connection counts are totals over every pool (read and write pools when routing); each pool is listed under pools.
      * 
      * Example: GET http://localhost:8080/api/monitoring/hikari
      */
@@ -41,22 +63,24 @@ public class MonitoringController {
         log.info("Fetching HikariCP connection pool metrics");
         
         try {
-            if (dataSource instanceof HikariDataSource) {
-                HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
-                HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+            List<HikariDataSource> hikariDataSources = hikariPools.getAll();
+            if (!hikariDataSources.isEmpty()) {
+                List<ConnectionPoolInfo> pools = hikariDataSources.stream().map(this::getPoolInfo).toList();
+                ConnectionPoolInfo primary = pools.get(0);
                 
                 ConnectionPoolInfo info = ConnectionPoolInfo.builder()
-                    .poolName(hikariDataSource.getPoolName())
-                    .totalConnections(poolMXBean.getTotalConnections())
-                    .activeConnections(poolMXBean.getActiveConnections())
-                    .idleConnections(poolMXBean.getIdleConnections())
-                    .threadsAwaitingConnection(poolMXBean.getThreadsAwaitingConnection())
-                    .maximumPoolSize(hikariDataSource.getMaximumPoolSize())
-                    .minimumIdle(hikariDataSource.getMinimumIdle())
-                    .connectionTimeout(hikariDataSource.getConnectionTimeout())
-                    .idleTimeout(hikariDataSource.getIdleTimeout())
-                    .maxLifetime(hikariDataSource.getMaxLifetime())
+                    .poolName(pools.stream().map(ConnectionPoolInfo::getPoolName).collect(Collectors.joining(",")))
+                    .totalConnections(pools.stream().mapToInt(ConnectionPoolInfo::getTotalConnections).sum())
+                    .activeConnections(pools.stream().mapToInt(ConnectionPoolInfo::getActiveConnections).sum())
+                    .idleConnections(pools.stream().mapToInt(ConnectionPoolInfo::getIdleConnections).sum())
+                    .threadsAwaitingConnection(pools.stream().mapToInt(ConnectionPoolInfo::getThreadsAwaitingConnection).sum())
+                    .maximumPoolSize(pools.stream().mapToInt(ConnectionPoolInfo::getMaximumPoolSize).sum())
+                    .minimumIdle(pools.stream().mapToInt(ConnectionPoolInfo::getMinimumIdle).sum())
+                    .connectionTimeout(primary.getConnectionTimeout())
+                    .idleTimeout(primary.getIdleTimeout())
+                    .maxLifetime(primary.getMaxLifetime())
                     .status("healthy")
+                    .pools(pools)
                     .timestamp(System.currentTimeMillis())
                     .build();
                 
@@ -86,8 +110,29 @@ public class MonitoringController {
         }
     }
 
+    /**
+     * Metrics of one pool (zeros until Hikari has started it)
+     */
+    private ConnectionPoolInfo getPoolInfo(HikariDataSource hikariDataSource) {
+        HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+        return ConnectionPoolInfo.builder()
+            .poolName(hikariDataSource.getPoolName())
+            .totalConnections(poolMXBean != null ? poolMXBean.getTotalConnections() : 0)
+            .activeConnections(poolMXBean != null ? poolMXBean.getActiveConnections() : 0)
+            .idleConnections(poolMXBean != null ? poolMXBean.getIdleConnections() : 0)
+            .threadsAwaitingConnection(poolMXBean != null ? poolMXBean.getThreadsAwaitingConnection() : 0)
+            .maximumPoolSize(hikariDataSource.getMaximumPoolSize())
+            .minimumIdle(hikariDataSource.getMinimumIdle())
+            .connectionTimeout(hikariDataSource.getConnectionTimeout())
+            .idleTimeout(hikariDataSource.getIdleTimeout())
+            .maxLifetime(hikariDataSource.getMaxLifetime())
+            .status("healthy")
+            .build();
+    }
+
     /**
      * Get detailed connection pool statistics as a map
+     * currentState and health are totals over every pool; configuration and state of each pool are listed under pools.
      * 
      * Example: GET http://localhost:8080/api/monitoring/hikari/details
      */
@@ -98,41 +143,52 @@ public class MonitoringController {
         Map<String, Object> details = new HashMap<>();
         
         try {
-            if (dataSource instanceof HikariDataSource) {
-                HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
-                HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+            List<HikariDataSource> hikariDataSources = hikariPools.getAll();
+            if (!hikariDataSources.isEmpty()) {
+                List<String> poolNames = new ArrayList<>();
+                List<Map<String, Object>> pools = new ArrayList<>();
+                int total = 0, active = 0, idle = 0, waiting = 0, max = 0;
+                for (HikariDataSource hikariDataSource : hikariDataSources) {
+                    HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+                    int poolTotal = poolMXBean != null ? poolMXBean.getTotalConnections() : 0;
+                    int poolActive = poolMXBean != null ? poolMXBean.getActiveConnections() : 0;
+                    int poolIdle = poolMXBean != null ? poolMXBean.getIdleConnections() : 0;
+                    int poolWaiting = poolMXBean != null ? poolMXBean.getThreadsAwaitingConnection() : 0;
+                    int poolMax = hikariDataSource.getMaximumPoolSize();
+                    
+                    // Configuration
+                    Map<String, Object> config = new HashMap<>();
+                    config.put("maximumPoolSize", poolMax);
+                    config.put("minimumIdle", hikariDataSource.getMinimumIdle());
+                    config.put("connectionTimeout", hikariDataSource.getConnectionTimeout() + "ms");
+                    config.put("idleTimeout", hikariDataSource.getIdleTimeout() + "ms");
+                    config.put("maxLifetime", hikariDataSource.getMaxLifetime() + "ms");
+                    config.put("jdbcUrl", hikariDataSource.getJdbcUrl());
+                    config.put("driverClassName", hikariDataSource.getDriverClassName());
+                    
+                    Map<String, Object> pool = new HashMap<>();
+                    pool.put("poolName", hikariDataSource.getPoolName());
+                    pool.put("currentState", currentState(poolTotal, poolActive, poolIdle, poolWaiting));
+                    pool.put("configuration", config);
+                    pool.put("health", health(poolTotal, poolActive, poolIdle, poolWaiting, poolMax));
+                    pools.add(pool);
+                    
+                    poolNames.add(hikariDataSource.getPoolName());
+                    total += poolTotal;
+                    active += poolActive;
+                    idle += poolIdle;
+                    waiting += poolWaiting;
+                    max += poolMax;
+                }
                 
                 // Connection Pool Status
-                details.put("poolName", hikariDataSource.getPoolName());
+                details.put("poolName", String.join(",", poolNames));
                 details.put("status", "healthy");
                 
-                // Current State
-                Map<String, Object> currentState = new HashMap<>();
-                currentState.put("totalConnections", poolMXBean.getTotalConnections());
-                currentState.put("activeConnections", poolMXBean.getActiveConnections());
-                currentState.put("idleConnections", poolMXBean.getIdleConnections());
-                currentState.put("threadsAwaitingConnection", poolMXBean.getThreadsAwaitingConnection());
-                details.put("currentState", currentState);
-                
-                // Configuration
-                Map<String, Object> config = new HashMap<>();
-                config.put("maximumPoolSize", hikariDataSource.getMaximumPoolSize());
-                config.put("minimumIdle", hikariDataSource.getMinimumIdle());
-                config.put("connectionTimeout", hikariDataSource.getConnectionTimeout() + "ms");
-                config.put("idleTimeout", hikariDataSource.getIdleTimeout() + "ms");
-                config.put("maxLifetime", hikariDataSource.getMaxLifetime() + "ms");
-                config.put("jdbcUrl", hikariDataSource.getJdbcUrl());
-                config.put("driverClassName", hikariDataSource.getDriverClassName());
-                details.put("configuration", config);
-                
-                // Health Indicators
-                Map<String, Object> health = new HashMap<>();
-                health.put("poolUtilization", String.format("%.2f%%", 
-                    (poolMXBean.getActiveConnections() * 100.0) / hikariDataSource.getMaximumPoolSize()));
-                health.put("hasWaitingThreads", poolMXBean.getThreadsAwaitingConnection() > 0);
-                health.put("isPoolFull", poolMXBean.getTotalConnections() >= hikariDataSource.getMaximumPoolSize());
-                health.put("hasIdleConnections", poolMXBean.getIdleConnections() > 0);
-                details.put("health", health);
+                // Current State and Health Indicators, over all pools
+                details.put("currentState", currentState(total, active, idle, waiting));
+                details.put("health", health(total, active, idle, waiting, max));
+                details.put("pools", pools);
                 
                 details.put("timestamp", System.currentTimeMillis());
                 
@@ -150,8 +206,27 @@ public class MonitoringController {
         }
     }
 
+    private static Map<String, Object> currentState(int total, int active, int idle, int waiting) {
+        Map<String, Object> currentState = new HashMap<>();
+        currentState.put("totalConnections", total);
+        currentState.put("activeConnections", active);
+        currentState.put("idleConnections", idle);
+        currentState.put("threadsAwaitingConnection", waiting);
+        return currentState;
+    }
+
+    private static Map<String, Object> health(int total, int active, int idle, int waiting, int max) {
+        Map<String, Object> health = new HashMap<>();
+        health.put("poolUtilization", String.format("%.2f%%", max > 0 ? (active * 100.0) / max : 0.0));
+        health.put("hasWaitingThreads", waiting > 0);
+        health.put("isPoolFull", total >= max);
+        health.put("hasIdleConnections", idle > 0);
+        return health;
+    }
+
     /**
      * Get simple connection pool status (quick check)
+     * Counts are totals over every pool; each pool is listed under pools.
      * 
      * Example: GET http://localhost:8080/api/monitoring/hikari/status
      */
@@ -160,16 +235,10 @@ public class MonitoringController {
         Map<String, Object> status = new HashMap<>();
         
         try {
-            if (dataSource instanceof HikariDataSource) {
-                HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
-                HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
-                
-                status.put("active", poolMXBean.getActiveConnections());
-                status.put("idle", poolMXBean.getIdleConnections());
-                status.put("total", poolMXBean.getTotalConnections());
-                status.put("waiting", poolMXBean.getThreadsAwaitingConnection());
-                status.put("max", hikariDataSource.getMaximumPoolSize());
-                status.put("healthy", poolMXBean.getThreadsAwaitingConnection() == 0);
+            List<Map<String, Object>> pools = getPoolStates();
+            if (!pools.isEmpty()) {
+                status.putAll(totals(pools));
+                status.put("pools", pools);
                 
                 return ResponseEntity.ok(status);
             } else {
@@ -182,6 +251,115 @@ public class MonitoringController {
         }
     }
 
+    /**
+     * Get the state of every Hikari pool; with read/write routing also how many connections went to each
+     *
+     * Example: GET http://localhost:8080/api/monitoring/hikari/pools
+     */
+    @GetMapping("/hikari/pools")
+    public ResponseEntity<Map<String, Object>> getPools() {
+        log.info("Fetching state of all HikariCP pools");
+        
+        Map<String, Object> result = new HashMap<>();
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        result.put("routing", routing != null ? routing.getStats() : "disabled");
+        result.put("pools", getPoolStates());
+        result.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get adaptive pool sizing status: bounds, last sample per pool and the history of grow/shrink decisions
+     *
+     * Example: GET http://localhost:8080/api/monitoring/hikari/autosize
+     */
+    @GetMapping("/hikari/autosize")
+    public ResponseEntity<Map<String, Object>> getAutoSizeStatus() {
+        log.info("Fetching HikariCP auto-sizing status");
+        return ResponseEntity.ok(hikariPoolAutoSizer.getStats());
+    }
+
+    /**
+     * Get acquisition-wait and hold-time histograms per calling service method, ordered by total hold time
+     *
+     * Example: GET http://localhost:8080/api/monitoring/hikari/holdtimes
+     */
+    @GetMapping("/hikari/holdtimes")
+    public ResponseEntity<Map<String, Object>> getHoldTimes() {
+        log.info("Fetching HikariCP connection hold times");
+        return ResponseEntity.ok(connectionHoldTimeTracker.getStats());
+    }
+
+    /**
+     * Reset the hold-time histograms (e.g. before a load test)
+     *
+     * Example: DELETE http://localhost:8080/api/monitoring/hikari/holdtimes
+     */
+    @DeleteMapping("/hikari/holdtimes")
+    public ResponseEntity<Map<String, Object>> resetHoldTimes() {
+        log.info("Resetting HikariCP connection hold times");
+        connectionHoldTimeTracker.reset();
+        return ResponseEntity.ok(connectionHoldTimeTracker.getStats());
+    }
+
+    /**
+     * Get DB admission control state per pool: permits, queue depth, queue-time histogram and shed counts
+     *
+     * Example: GET http://localhost:8080/api/monitoring/hikari/admission
+     */
+    @GetMapping("/hikari/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        log.info("Fetching DB admission control statistics");
+        return ResponseEntity.ok(databaseAdmissionLimiter.getStats());
+    }
+
+    /**
+     * Get per-endpoint connection bulkheads: quota, connections in use, peak and rejections
+     *
+     * Example: GET http://localhost:8080/api/monitoring/hikari/bulkheads
+     */
+    @GetMapping("/hikari/bulkheads")
+    public ResponseEntity<Map<String, Object>> getBulkheadStats() {
+        log.info("Fetching connection bulkhead statistics");
+        return ResponseEntity.ok(connectionBulkheads.getStats());
+    }
+
+    /**
+     * Get per-shard pool state, row count and query latency of the sharded product store
+     *
+     * Example: GET http://localhost:8080/api/monitoring/hikari/shards
+     */
+    @GetMapping("/hikari/shards")
+    public ResponseEntity<Map<String, Object>> getShardStats() {
+        log.info("Fetching product shard statistics");
+        ShardedProductRepository shards = shardedProductRepository.getIfAvailable();
+        return ResponseEntity.ok(shards != null ? shards.getStats() : Map.of("enabled", false));
+    }
+
+    /**
+     * Get the outbound HTTP client pool behind RestTemplate: leased, available and pending
+     * connections in total and per route, limits and timeouts
+     *
+     * Example: GET http://localhost:8080/api/monitoring/http-client
+     */
+    @GetMapping("/http-client")
+    public ResponseEntity<Map<String, Object>> getHttpClientStats() {
+        log.info("Fetching HTTP client pool statistics");
+        return ResponseEntity.ok(httpClientPool.getStats());
+    }
+
+    /**
+     * Get the startup warm-up: pool fill, cold vs warmed latency per operation, duration and
+     * the latency of the first product API requests served afterwards
+     *
+     * Example: GET http://localhost:8080/api/monitoring/warmup
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<Map<String, Object>> getWarmupStats() {
+        log.info("Fetching startup warm-up statistics");
+        return ResponseEntity.ok(startupWarmup.getStats());
+    }
+
     /**
      * Server-Sent Events (SSE) endpoint for real-time metrics streaming
      * Sends connection pool metrics every 500ms
@@ -253,25 +431,28 @@ public class MonitoringController {
         Map<String, Object> metrics = new HashMap<>();
         
         try {
-            if (dataSource instanceof HikariDataSource) {
-                HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
-                HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
-                
+            // Totals over every pool (read and write pools when routing), plus each pool on its own
+            List<Map<String, Object>> pools = getPoolStates();
+            if (!pools.isEmpty()) {
                 metrics.put("timestamp", System.currentTimeMillis());
-                metrics.put("active", poolMXBean.getActiveConnections());
-                metrics.put("idle", poolMXBean.getIdleConnections());
-                metrics.put("total", poolMXBean.getTotalConnections());
-                metrics.put("waiting", poolMXBean.getThreadsAwaitingConnection());
-                metrics.put("max", hikariDataSource.getMaximumPoolSize());
+                metrics.putAll(totals(pools));
                 
                 // Calculate utilization percentage
-                int active = poolMXBean.getActiveConnections();
-                int max = hikariDataSource.getMaximumPoolSize();
+                int active = (int) metrics.get("active");
+                int max = (int) metrics.get("max");
                 double utilization = max > 0 ? (active * 100.0) / max : 0;
                 metrics.put("utilization", Math.round(utilization * 10) / 10.0);
                 
-                metrics.put("healthy", poolMXBean.getThreadsAwaitingConnection() == 0);
+                metrics.put("pools", pools);
+            }
+            if (connectionBulkheads.isEnabled()) {
+                metrics.put("bulkheads", connectionBulkheads.getStats().get("bulkheads"));
             }
+            ShardedProductRepository shards = shardedProductRepository.getIfAvailable();
+            if (shards != null) {
+                metrics.put("shards", shards.getStats().get("shards"));
+            }
+            metrics.put("httpClient", httpClientPool.getStats());
         } catch (Exception e) {
             log.error("Error getting current metrics: {}", e.getMessage());
             metrics.put("error", e.getMessage());
@@ -280,6 +461,65 @@ public class MonitoringController {
         return metrics;
     }
 
+    /**
+     * Current state of one pool (zeros until Hikari has started it)
+     */
+    private Map<String, Object> getPoolState(HikariDataSource hikariDataSource) {
+        HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+        int active = poolMXBean != null ? poolMXBean.getActiveConnections() : 0;
+        int waiting = poolMXBean != null ? poolMXBean.getThreadsAwaitingConnection() : 0;
+        int max = hikariDataSource.getMaximumPoolSize();
+        double utilization = max > 0 ? (active * 100.0) / max : 0;
+
+        Map<String, Object> state = new HashMap<>();
+        state.put("poolName", hikariDataSource.getPoolName());
+        state.put("active", active);
+        state.put("idle", poolMXBean != null ? poolMXBean.getIdleConnections() : 0);
+        state.put("total", poolMXBean != null ? poolMXBean.getTotalConnections() : 0);
+        state.put("waiting", waiting);
+        state.put("max", max);
+        state.put("minIdle", hikariDataSource.getMinimumIdle());
+        state.put("utilization", Math.round(utilization * 10) / 10.0);
+        state.put("healthy", waiting == 0);
+        
+        Map<String, Object> admission = databaseAdmissionLimiter.getStats(hikariDataSource.getPoolName());
+        if (admission != null) {
+            state.put("admissionQueue", admission.get("queueDepth"));
+            state.put("shed", admission.get("shed"));
+        }
+        return state;
+    }
+
+    /**
+     * Active, idle, total, waiting and max connections summed over the given pool states
+     */
+    private static Map<String, Object> totals(List<Map<String, Object>> pools) {
+        int active = 0, idle = 0, total = 0, waiting = 0, max = 0;
+        for (Map<String, Object> pool : pools) {
+            active += (int) pool.get("active");
+            idle += (int) pool.get("idle");
+            total += (int) pool.get("total");
+            waiting += (int) pool.get("waiting");
+            max += (int) pool.get("max");
+        }
+        Map<String, Object> totals = new HashMap<>();
+        totals.put("active", active);
+        totals.put("idle", idle);
+        totals.put("total", total);
+        totals.put("waiting", waiting);
+        totals.put("max", max);
+        totals.put("healthy", waiting == 0);
+        return totals;
+    }
+
+    private List<Map<String, Object>> getPoolStates() {
+        List<Map<String, Object>> states = new ArrayList<>();
+        for (HikariDataSource pool : hikariPools.getAll()) {
+            states.add(getPoolState(pool));
+        }
+        return states;
+    }
+
     /**
      * Health check endpoint
      * 
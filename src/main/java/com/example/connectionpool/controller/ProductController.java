@@ -1,20 +1,30 @@
 package com.example.connectionpool.controller;
 
+import com.example.connectionpool.dto.ProductBulkResponse;
+import com.example.connectionpool.dto.ProductPageResponse;
 import com.example.connectionpool.dto.ProductRequest;
 import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.service.ProductGroupCommitter;
 import com.example.connectionpool.service.ProductService;
 import com.example.connectionpool.service.ProductServiceAsync;
 import com.example.connectionpool.service.MockApiService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/products")
@@ -25,10 +35,22 @@ public class ProductController {
     private final ProductService productService;
     private final ProductServiceAsync productServiceAsync;
     private final MockApiService mockApiService;
+    private final ProductGroupCommitter productGroupCommitter;
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
     
     @Value("${product.api.sleep.ms:0}")
     private long productApiSleepMs;
 
+    @Value("${product.page.max-limit:1000}")
+    private int productPageMaxLimit;
+
+    @Value("${product.batch.max-ids:1000}")
+    private int productBatchMaxIds;
+
+    @Value("${product.bulk.max-items:10000}")
+    private int productBulkMaxItems;
+
     /**
      * Main endpoint: Process a product - queries DB, calls external API, and updates based on result
      * 
@@ -40,7 +62,14 @@ public class ProductController {
         try {
             ProductResponse response = productService.processProduct(id);
             return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.error("Gave up processing product {} after repeated version conflicts", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                ProductResponse.builder()
+                    .message("Error: Product was modified concurrently, please retry")
+                    .build()
+            );
+        } catch (ProductNotFoundException e) {
             log.error("Error processing product: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
                 ProductResponse.builder()
@@ -52,6 +81,8 @@ public class ProductController {
 
     /**
      * Create a new product
+     * With group commit enabled, concurrent creates are inserted together in one transaction
+     * and each request returns once its group has committed.
      * 
      * Example: POST http://localhost:8080/api/products
      * Body: { "name": "Laptop", "description": "High-end laptop", "price": 1200.00, "stockQuantity": 50 }
@@ -59,32 +90,131 @@ public class ProductController {
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductRequest request) {
         log.info("Received request to create product: {}", request.getName());
-        ProductResponse response = productService.createProduct(request);
+        ProductResponse response = productGroupCommitter.isEnabled()
+                ? productGroupCommitter.create(request)
+                : productService.createProduct(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * Create many products at once (JDBC batch inserts in a single transaction)
+     * Reports how long the insert took and the achieved rows/sec; at most product.bulk.max-items per request
+     * 
+     * Example: POST http://localhost:8080/api/products/bulk
+     * Body: [ { "name": "Laptop", "description": "High-end laptop", "price": 1200.00, "stockQuantity": 50 }, ... ]
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<ProductBulkResponse> createProducts(
+            @RequestBody @NotEmpty List<@Valid ProductRequest> requests) {
+        log.info("Received request to bulk create {} products", requests.size());
+        if (requests.size() > productBulkMaxItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductBulkResponse response = productService.createProducts(requests);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     /**
      * Get all products
+     * Sends an ETag carrying the table generation, which every write path of the application bumps;
+     * a matching If-None-Match is answered 304 without any query.
      * 
      * Example: GET http://localhost:8080/api/products
      */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
+    public ResponseEntity<List<ProductResponse>> getAllProducts(WebRequest webRequest) {
         log.info("Received request to get all products");
+        String etag = "\"products-" + productService.getProductsGeneration() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            log.info("Product list not modified (ETag {})", etag);
+            return null;
+        }
         List<ProductResponse> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok().eTag(etag).body(products);
+    }
+
+    /**
+     * Stream all products as NDJSON (one JSON object per line)
+     * Selected with Accept: application/x-ndjson; rows are written as they are read
+     * from a forward-only cursor, so heap use stays flat however large the table is.
+     * 
+     * Example: GET http://localhost:8080/api/products
+     *          Accept: application/x-ndjson
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        log.info("Received request to stream all products as NDJSON");
+        StreamingResponseBody body = outputStream -> productService.streamAllProducts(outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Get several products by ID with a single IN query (cache hits are served without a query)
+     * Unknown IDs are skipped; at most product.batch.max-ids IDs per request
+     * 
+     * Example: GET http://localhost:8080/api/products/batch?ids=1,2,3
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam List<Long> ids) {
+        log.info("Received batch request for {} product IDs", ids.size());
+        if (ids.isEmpty() || ids.size() > productBatchMaxIds) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
+    /**
+     * Get products one page at a time (keyset / cursor pagination)
+     * Pass the nextCursor of the previous page as 'after'; deep pages cost the same as the first one.
+     * sort=id (default) or sort=price (price ascending, then id, using idx_products_price)
+     * 
+     * Example: GET http://localhost:8080/api/products/page?limit=50
+     * Example: GET http://localhost:8080/api/products/page?sort=price&limit=50&after={nextCursor}
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ProductPageResponse> getProductsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = ProductService.PAGE_SORT_ID) String sort) {
+        log.info("Received request for product page: sort={}, limit={}", sort, limit);
+        if (limit < 1 || limit > productPageMaxLimit) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ProductPageResponse page = switch (sort) {
+                case ProductService.PAGE_SORT_ID -> productService.getProductsPage(after, limit);
+                case ProductService.PAGE_SORT_PRICE -> productService.getProductsPageByPrice(after, limit);
+                default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+            };
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
      * Get product by ID
      * Includes a mock API call with configurable delay
+     * Sends a strong ETag ("id-version"); a matching If-None-Match is answered 304 before the
+     * configured sleep and without writing a body. The version comes from the product cache; on a
+     * miss the row is loaded and cached once, and the body below reuses it.
      * 
      * Example: GET http://localhost:8080/api/products/1
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest webRequest) {
         log.info("Received request to get product with ID: {}", id);
         try {
+            // Version is read before the body, so the ETag can only be older than the body, never newer
+            String etag = ProductService.etag(id+1, productService.getProductVersion(id+1));
+            if (webRequest.checkNotModified(etag)) {
+                log.info("Product {} not modified (ETag {})", id+1, etag);
+                return null;
+            }
+
             ProductResponse response = productService.getProductById(id);
             
             // Call mock API with configurable delay
@@ -104,9 +234,10 @@ public class ProductController {
             //    response.setMessage(response.getMessage() + " | " + mockApiResponse);
             //}
 
-            ProductResponse response2 = productService.getProductById(id+1);
+            // Pre-encoded JSON from the product cache, written to the response as-is
+            byte[] response2 = productService.getProductJsonById(id+1);
 
-            return ResponseEntity.ok(response2);
+            return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(response2);
         } catch (InterruptedException e) {
             log.error("Thread interrupted during sleep: {}", e.getMessage());
             Thread.currentThread().interrupt();
@@ -115,7 +246,7 @@ public class ProductController {
                     .message("Error: Thread interrupted")
                     .build()
             );
-        } catch (RuntimeException e) {
+        } catch (ProductNotFoundException e) {
             log.error("Error getting product: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
                 ProductResponse.builder()
@@ -159,7 +290,7 @@ public class ProductController {
                             .message("Error: Thread interrupted")
                             .build()
             );
-        } catch (RuntimeException e) {
+        } catch (ProductNotFoundException e) {
             log.error("Error getting product with ID {}: {}", randomId, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
                     ProductResponse.builder()
@@ -180,7 +311,7 @@ public class ProductController {
         try {
             productService.deleteProduct(id);
             return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
+        } catch (ProductNotFoundException e) {
             log.error("Error deleting product: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -191,19 +322,41 @@ public class ProductController {
      * Uses async processing to release DB connection before calling mock API
      * This prevents connection pool exhaustion during long-running external API calls
      * 
+     * Sends a weak ETag (the message carries per-request timings, so bodies are only semantically
+     * equal) built from the version of the row in the body. When the product is cached, a matching
+     * If-None-Match is answered 304 on the request thread without a query or the mock API call;
+     * otherwise the ETag of the loaded row is compared when the response is written.
+     * 
      * Example: GET http://localhost:8080/api/products/v2/1
      */
     @GetMapping("/v2/{id}")
-    public CompletableFuture<ResponseEntity<ProductResponse>> getProductByIdV2(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<ProductResponse>> getProductByIdV2(@PathVariable Long id,
+                                                                               WebRequest webRequest) {
         log.info("[V2] Received non-blocking request to get product with ID: {}", id);
-        
+
+        // Only the cached version is used here: a miss must not block the request thread on a query
+        Long cachedVersion = productService.getCachedProductVersion(id);
+        if (cachedVersion != null) {
+            String etag = weakEtag(id, cachedVersion);
+            if (webRequest.checkNotModified(etag)) {
+                log.info("[V2] Product {} not modified (ETag {})", id, etag);
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+            }
+        }
+
+        // A 200 with an ETag matching If-None-Match is turned into a 304 when the response is written
         return productServiceAsync.getProductWithMockApiAsync(id)
-                .thenApply(response -> {
+                .thenApply(versioned -> {
                     log.info("[V2] Non-blocking request completed for product ID: {}", id);
 
-                    return ResponseEntity.ok(response);
+                    return ResponseEntity.ok().eTag(weakEtag(id, versioned.version())).body(versioned.response());
                 })
                 .exceptionally(e -> {
+                    // Only a missing product is answered here; anything else goes to the exception handlers
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof ProductNotFoundException)) {
+                        throw e instanceof CompletionException ce ? ce : new CompletionException(e);
+                    }
                     log.error("[V2] Error in non-blocking request: {}", e.getMessage());
                     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
                         ProductResponse.builder()
@@ -213,6 +366,10 @@ public class ProductController {
                 });
     }
 
+    private static String weakEtag(Long id, long version) {
+        return "W/" + ProductService.etag(id, version);
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,221 @@
+package com.example.connectionpool.controller;
+
+import com.example.connectionpool.service.AsyncMockApiClient;
+import com.example.connectionpool.service.ProductBatchLoader;
+import com.example.connectionpool.service.ProductBenchmarkService;
+import com.example.connectionpool.service.ProductCache;
+import com.example.connectionpool.service.ProductDataGenerator;
+import com.example.connectionpool.service.ProductGroupCommitter;
+import com.example.connectionpool.service.ProductIdIndex;
+import com.example.connectionpool.service.ProductServiceAsync;
+import com.example.connectionpool.service.ProductStorageBenchmarkService;
+import com.example.connectionpool.service.ProductTouchBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/monitoring/products")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductMonitoringController {
+
+    private final ProductCache productCache;
+    private final ProductBenchmarkService productBenchmarkService;
+    private final ProductStorageBenchmarkService productStorageBenchmarkService;
+    private final ProductBatchLoader productBatchLoader;
+    private final ProductServiceAsync productServiceAsync;
+    private final AsyncMockApiClient asyncMockApiClient;
+    private final ProductIdIndex productIdIndex;
+    private final ProductTouchBuffer productTouchBuffer;
+    private final ProductGroupCommitter productGroupCommitter;
+    private final ProductDataGenerator productDataGenerator;
+
+    /**
+     * Get product read-through cache statistics (hits, misses, evictions, invalidations)
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        log.info("Fetching product cache statistics");
+        return ResponseEntity.ok(productCache.getStats());
+    }
+
+    /**
+     * Clear the product cache (e.g. before a load test)
+     *
+     * Example: DELETE http://localhost:8080/api/monitoring/products/cache
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        log.info("Clearing product cache");
+        productCache.clear();
+        return ResponseEntity.ok(productCache.getStats());
+    }
+
+    /**
+     * Get batch loader statistics (coalesced lookups, batches dispatched, average batch size)
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/batch-loader
+     */
+    @GetMapping("/batch-loader")
+    public ResponseEntity<Map<String, Object>> getBatchLoaderStats() {
+        log.info("Fetching product batch loader statistics");
+        return ResponseEntity.ok(productBatchLoader.getStats());
+    }
+
+    /**
+     * Get single-flight statistics for /api/products/v2/{id}: how many concurrent lookups of the
+     * same id shared an in-flight DB fetch / mock API call (dedupRatio is a percentage)
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/single-flight
+     */
+    @GetMapping("/single-flight")
+    public ResponseEntity<Map<String, Object>> getSingleFlightStats() {
+        log.info("Fetching product single-flight statistics");
+        return ResponseEntity.ok(productServiceAsync.getSingleFlightStats());
+    }
+
+    /**
+     * Get the non-blocking mock API client of /api/products/v2/{id}: calls in flight (one socket
+     * each), queued and rejected calls and call latency
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/mock-api
+     */
+    @GetMapping("/mock-api")
+    public ResponseEntity<Map<String, Object>> getMockApiStats() {
+        log.info("Fetching async mock API client statistics");
+        return ResponseEntity.ok(asyncMockApiClient.getStats());
+    }
+
+    /**
+     * Get product id index statistics (lookups answered "definitely absent" without a query)
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/id-index
+     */
+    @GetMapping("/id-index")
+    public ResponseEntity<Map<String, Object>> getIdIndexStats() {
+        log.info("Fetching product id index statistics");
+        return ResponseEntity.ok(productIdIndex.getStats());
+    }
+
+    /**
+     * Rebuild the product id index from the database
+     *
+     * Example: POST http://localhost:8080/api/monitoring/products/id-index/reload
+     */
+    @PostMapping("/id-index/reload")
+    public ResponseEntity<Map<String, Object>> reloadIdIndex() {
+        log.info("Reloading product id index");
+        productIdIndex.reload();
+        return ResponseEntity.ok(productIdIndex.getStats());
+    }
+
+    /**
+     * Get last_updated write-behind statistics (buffered touches, flushes, rows written, lag)
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/write-behind
+     */
+    @GetMapping("/write-behind")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStats() {
+        log.info("Fetching product touch write-behind statistics");
+        return ResponseEntity.ok(productTouchBuffer.getStats());
+    }
+
+    /**
+     * Get group commit statistics for POST /api/products (groups committed, average group size)
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/group-commit
+     */
+    @GetMapping("/group-commit")
+    public ResponseEntity<Map<String, Object>> getGroupCommitStats() {
+        log.info("Fetching product group commit statistics");
+        return ResponseEntity.ok(productGroupCommitter.getStats());
+    }
+
+    /**
+     * Before/after comparison of the read paths: entity hydration vs ProductView projections
+     * Reports average latency and bytes allocated per operation for single reads and full scans.
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/projection-benchmark?iterations=2000&scans=5
+     */
+    @GetMapping("/projection-benchmark")
+    public ResponseEntity<Map<String, Object>> projectionBenchmark(
+            @RequestParam(defaultValue = "2000") int iterations,
+            @RequestParam(defaultValue = "5") int scans) {
+        log.info("Running projection benchmark: iterations={}, scans={}", iterations, scans);
+        return ResponseEntity.ok(productBenchmarkService.compareEntityVsProjection(iterations, scans));
+    }
+
+    /**
+     * Before/after comparison of JSON encoding: Jackson on every read vs cached JSON bytes
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/json-benchmark?iterations=20000&hotIds=100
+     */
+    @GetMapping("/json-benchmark")
+    public ResponseEntity<Map<String, Object>> jsonBenchmark(
+            @RequestParam(defaultValue = "20000") int iterations,
+            @RequestParam(defaultValue = "100") int hotIds) {
+        log.info("Running JSON benchmark: iterations={}, hotIds={}", iterations, hotIds);
+        return ResponseEntity.ok(productBenchmarkService.compareJsonSerialization(iterations, hotIds));
+    }
+
+    /**
+     * Product workload on a scratch in-memory and a scratch file-backed (MVStore) H2 database:
+     * load, startup, point read, full scan, update and insert throughput. The file settings default
+     * to product.storage.file.* (persistent profile). Counts above product.storage-benchmark.max-* are rejected with 400.
+     *
+     * Example: GET http://localhost:8080/api/monitoring/products/storage-benchmark?rows=10000&reads=20000&writes=2000&writeDelayMs=0
+     */
+    @GetMapping("/storage-benchmark")
+    public ResponseEntity<Map<String, Object>> storageBenchmark(
+            @RequestParam(defaultValue = "10000") int rows,
+            @RequestParam(defaultValue = "20000") int reads,
+            @RequestParam(defaultValue = "2000") int writes,
+            @RequestParam(required = false) Integer cacheSizeKb,
+            @RequestParam(required = false) Integer writeDelayMs,
+            @RequestParam(required = false) Boolean compress) {
+        log.info("Running storage benchmark: rows={}, reads={}, writes={}", rows, reads, writes);
+        try {
+            return ResponseEntity.ok(productStorageBenchmarkService.compareInMemoryVsFile(
+                    rows, reads, writes, cacheSizeKb, writeDelayMs, compress));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected storage benchmark: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Generate count synthetic products (deterministic for a given seed) for scale tests.
+     * Replaces the table unless append=true; the id index and the product cache are refreshed afterwards.
+     * count has no default, so a bare POST is rejected with 400 instead of replacing the table.
+     *
+     * Example: POST http://localhost:8080/api/monitoring/products/generate?count=1000000&seed=42
+     */
+    @PostMapping("/generate")
+    public ResponseEntity<Map<String, Object>> generateProducts(
+            @RequestParam long count,
+            @RequestParam(defaultValue = "42") long seed,
+            @RequestParam(defaultValue = "false") boolean append) {
+        log.info("Generating products: count={}, seed={}, append={}", count, seed, append);
+        try {
+            return ResponseEntity.ok(productDataGenerator.generate(count, seed, append));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected product generation: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Rejected product generation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.connectionpool.controller;
+
+import com.example.connectionpool.dto.ProductRequest;
+import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.service.ShardedProductService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Product endpoints served by the sharded H2 store (--spring.profiles.active=sharded)
+ */
+@RestController
+@RequestMapping("/api/sharded/products")
+@ConditionalOnProperty(name = "product.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedProductController {
+
+    private final ShardedProductService shardedProductService;
+
+    /**
+     * Get product by ID from the shard that owns it
+     *
+     * Example: GET http://localhost:8080/api/sharded/products/1
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(shardedProductService.getProductById(id));
+        } catch (ProductNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    ProductResponse.builder()
+                            .message("Error: " + e.getMessage())
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Create a product on the shard its new id hashes to
+     *
+     * Example: POST http://localhost:8080/api/sharded/products
+     * Body: { "name": "Laptop", "description": "High-end laptop", "price": 1200.00, "stockQuantity": 50 }
+     */
+    @PostMapping
+    public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductRequest request) {
+        log.info("Received request to create sharded product: {}", request.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(shardedProductService.createProduct(request));
+    }
+
+    /**
+     * Get all products, gathered from every shard and merged in id order
+     *
+     * Example: GET http://localhost:8080/api/sharded/products
+     */
+    @GetMapping
+    public ResponseEntity<List<ProductResponse>> getAllProducts() {
+        return ResponseEntity.ok(shardedProductService.getAllProducts());
+    }
+
+    /**
+     * Get products with more than minQuantity in stock, in id order
+     *
+     * Example: GET http://localhost:8080/api/sharded/products/in-stock?minQuantity=100
+     */
+    @GetMapping("/in-stock")
+    public ResponseEntity<List<ProductResponse>> getProductsInStock(@RequestParam(defaultValue = "0") Integer minQuantity) {
+        return ResponseEntity.ok(shardedProductService.getProductsInStock(minQuantity));
+    }
+
+    /**
+     * Get products cheaper than maxPrice, most expensive first
+     *
+     * Example: GET http://localhost:8080/api/sharded/products/under-price?maxPrice=50
+     */
+    @GetMapping("/under-price")
+    public ResponseEntity<List<ProductResponse>> getProductsUnderPrice(@RequestParam Double maxPrice) {
+        return ResponseEntity.ok(shardedProductService.getProductsUnderPrice(maxPrice));
+    }
+}
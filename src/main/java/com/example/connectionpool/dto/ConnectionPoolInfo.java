@@ -1,10 +1,13 @@
 package com.example.connectionpool.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -22,5 +25,8 @@ public class ConnectionPoolInfo {
     private Long maxLifetime;
     private String status;
     private Long timestamp;
+    // Each pool on its own when the numbers above are totals over several pools
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ConnectionPoolInfo> pools;
 }
 
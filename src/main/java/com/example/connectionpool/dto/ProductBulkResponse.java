@@ -0,0 +1,21 @@
+package com.example.connectionpool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkResponse {
+    private Integer created;
+    private Integer batches;
+    private Integer batchSize;
+    private Long elapsedMs;
+    private Long rowsPerSecond;
+    private List<Long> ids;
+}
@@ -0,0 +1,20 @@
+package com.example.connectionpool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> items;
+    private String sort;
+    private Integer limit;
+    private Boolean hasMore;
+    private String nextCursor;
+}
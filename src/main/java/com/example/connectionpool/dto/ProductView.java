@@ -0,0 +1,19 @@
+package com.example.connectionpool.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a product row.
+ * Selected directly by JPQL constructor expressions, so read paths skip entity
+ * hydration, the persistence context and dirty-checking snapshots.
+ */
+public record ProductView(
+        Long id,
+        String name,
+        String description,
+        Double price,
+        Integer stockQuantity,
+        String externalApiResponse,
+        LocalDateTime lastUpdated,
+        Long version) {
+}
@@ -0,0 +1,8 @@
+package com.example.connectionpool.dto;
+
+/**
+ * Product response together with the row version it was built from, so the caller can send an
+ * ETag for exactly the data in the body.
+ */
+public record VersionedProductResponse(ProductResponse response, long version) {
+}
@@ -0,0 +1,21 @@
+package com.example.connectionpool.exception;
+
+/**
+ * Thrown when an endpoint has used up its connection quota (its bulkhead) and no permit freed up
+ * within the bulkhead wait; answered with 503 and Retry-After like any other shed borrower.
+ */
+public class BulkheadFullException extends DatabaseOverloadedException {
+
+    public static final String REASON = "bulkhead-full";
+
+    private final String bulkhead;
+
+    public BulkheadFullException(String pool, String bulkhead, long retryAfterSeconds) {
+        super(pool, REASON, retryAfterSeconds);
+        this.bulkhead = bulkhead;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.connectionpool.exception;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown instead of queueing for a connection when the admission queue of a pool is full or the
+ * expected wait exceeds the queue-time budget; answered with 503 and Retry-After.
+ *
+ * It is an SQLException, like Hikari's own connection-timeout, so JPA and JdbcTemplate wrap it in
+ * their usual exceptions; handlers look for it in the cause chain. Shedding happens under overload,
+ * so the exception skips stack trace capture.
+ */
+public class DatabaseOverloadedException extends SQLTransientConnectionException {
+
+    private final String pool;
+    private final String reason;
+    private final long retryAfterSeconds;
+
+    public DatabaseOverloadedException(String pool, String reason, long retryAfterSeconds) {
+        super("Database pool " + pool + " is overloaded (" + reason + "), retry after " + retryAfterSeconds + "s");
+        this.pool = pool;
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getPool() {
+        return pool;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
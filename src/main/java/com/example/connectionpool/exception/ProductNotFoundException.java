@@ -0,0 +1,14 @@
+package com.example.connectionpool.exception;
+
+/**
+ * Thrown when a product id does not exist.
+ *
+ * Misses are an expected outcome on the hot read paths (random ids, deleted ids), so the
+ * exception skips stack trace capture; the message is all the callers use.
+ */
+public class ProductNotFoundException extends RuntimeException {
+
+    public ProductNotFoundException(Long id) {
+        super("Product not found with id: " + id, null, false, false);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.connectionpool.repository;
+
+import com.example.connectionpool.dto.ProductRequest;
+import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.dto.ProductView;
+import com.example.connectionpool.service.ProductTableGeneration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Plain JDBC access to the products table for paths where JPA entity hydration is
+ * the bottleneck (streaming, bulk operations).
+ * With read/write routing, lookups run on a JdbcTemplate bound to the read pool itself, so they read from it
+ * without a transaction; inserts and updates use the primary JdbcTemplate and take part in the caller's transaction.
+ */
+@Repository
+@Slf4j
+public class ProductJdbcRepository {
+
+    private static final String SELECT_ALL_ORDERED_BY_ID =
+            "SELECT id, name, description, price, stock_quantity, external_api_response, last_updated " +
+            "FROM products ORDER BY id";
+
+    public static final RowMapper<ProductResponse> PRODUCT_RESPONSE_MAPPER = (rs, rowNum) -> ProductResponse.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .description(rs.getString("description"))
+            .price(rs.getDouble("price"))
+            .stockQuantity(rs.getInt("stock_quantity"))
+            .externalApiResponse(rs.getString("external_api_response"))
+            .lastUpdated(rs.getObject("last_updated", LocalDateTime.class))
+            .build();
+
+    public static final RowMapper<ProductView> PRODUCT_VIEW_MAPPER = (rs, rowNum) -> new ProductView(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getDouble("price"),
+            rs.getInt("stock_quantity"),
+            rs.getString("external_api_response"),
+            rs.getObject("last_updated", LocalDateTime.class),
+            rs.getLong("version"));
+
+    private static final String SELECT_VIEWS =
+            "SELECT id, name, description, price, stock_quantity, external_api_response, last_updated, version " +
+            "FROM products";
+
+    private static final String SELECT_VIEW_BY_ID = SELECT_VIEWS + " WHERE id = ?";
+
+    private static final String SELECT_ALL_IDS = "SELECT id FROM products";
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, description, price, stock_quantity, last_updated, created_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPDATE_LAST_UPDATED =
+            "UPDATE products SET last_updated = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate readJdbcTemplate;
+    private final ProductTableGeneration productTableGeneration;
+
+    public ProductJdbcRepository(JdbcTemplate jdbcTemplate,
+                                 @Qualifier("readDataSource") ObjectProvider<DataSource> readDataSource,
+                                 ProductTableGeneration productTableGeneration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productTableGeneration = productTableGeneration;
+        DataSource readPool = readDataSource.getIfAvailable();
+        this.readJdbcTemplate = readPool != null ? new JdbcTemplate(readPool) : jdbcTemplate;
+    }
+
+    /**
+     * Single-row projection by primary key, without JPA query-method overhead
+     */
+    public Optional<ProductView> findViewById(Long id) {
+        List<ProductView> rows = readJdbcTemplate.query(SELECT_VIEW_BY_ID, PRODUCT_VIEW_MAPPER, id);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Multi-row projection in a single WHERE id IN (...) query; ids that do not exist are simply absent
+     */
+    public List<ProductView> findViewsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = SELECT_VIEWS + " WHERE id IN (" + placeholders + ")";
+        return readJdbcTemplate.query(sql, PRODUCT_VIEW_MAPPER, ids.toArray());
+    }
+
+    /**
+     * Inserts the products with JDBC batching: one executeBatch round trip per batchSize rows.
+     * Ids stay IDENTITY values and are read back through getGeneratedKeys, in insertion order.
+     * Runs in the caller's transaction when there is one.
+     *
+     * @param now value for last_updated and created_at of every row
+     * @return generated ids, in the order of the requests
+     */
+    public List<Long> insertBatch(List<ProductRequest> requests, int batchSize, LocalDateTime now) {
+        List<Long> ids = new ArrayList<>(requests.size());
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<ProductRequest> chunk = requests.subList(from, Math.min(from + batchSize, requests.size()));
+            GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_PRODUCT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ProductRequest request = chunk.get(i);
+                            ps.setString(1, request.getName());
+                            ps.setString(2, request.getDescription());
+                            ps.setDouble(3, request.getPrice());
+                            ps.setInt(4, request.getStockQuantity());
+                            ps.setTimestamp(5, timestamp);
+                            ps.setTimestamp(6, timestamp);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder);
+            for (Map<String, Object> keys : keyHolder.getKeyList()) {
+                ids.add(((Number) keys.values().iterator().next()).longValue());
+            }
+        }
+        productTableGeneration.bump();
+        return ids;
+    }
+
+    /**
+     * Writes many last_updated touches as one JDBC batch in a single transaction.
+     * The version is bumped as well, like a JPA save would, so ETags change with lastUpdated.
+     *
+     * @return number of rows updated (ids deleted in the meantime are skipped)
+     */
+    @Transactional
+    public int updateLastUpdatedBatch(Map<Long, LocalDateTime> lastUpdatedById) {
+        List<Object[]> args = new ArrayList<>(lastUpdatedById.size());
+        lastUpdatedById.forEach((id, lastUpdated) -> args.add(new Object[]{lastUpdated, id}));
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_LAST_UPDATED, args);
+        int updated = 0;
+        for (int count : counts) {
+            // SUCCESS_NO_INFO (-2) means the driver did not report a count; treat it as one row
+            updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        productTableGeneration.bump();
+        return updated;
+    }
+
+    /**
+     * Reads every product with a forward-only, read-only cursor and hands each row to the
+     * consumer as soon as it is read. Nothing is collected, so heap use does not grow with
+     * the table size.
+     *
+     * H2 normally materializes the whole result before returning the first row; lazy query
+     * execution is switched on for this statement only so rows are produced as the cursor
+     * advances, and switched off again before the connection goes back to the pool.
+     *
+     * @return number of rows streamed
+     */
+    public long streamAllOrderedById(int fetchSize, Consumer<ProductResponse> consumer) {
+        Long rows = readJdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            setLazyQueryExecution(connection, true);
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_ALL_ORDERED_BY_ID,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                long count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(PRODUCT_RESPONSE_MAPPER.mapRow(rs, (int) count));
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                setLazyQueryExecution(connection, false);
+            }
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Reads every product id with a lazily executed forward-only cursor (see streamAllOrderedById)
+     *
+     * @return number of ids read
+     */
+    public long forEachId(int fetchSize, LongConsumer consumer) {
+        Long rows = readJdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            setLazyQueryExecution(connection, true);
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_ALL_IDS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                long count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getLong(1));
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                setLazyQueryExecution(connection, false);
+            }
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private void setLazyQueryExecution(Connection connection, boolean enabled) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (enabled ? "TRUE" : "FALSE"));
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.connectionpool.repository;
 
+import com.example.connectionpool.dto.ProductView;
 import com.example.connectionpool.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -14,5 +20,52 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE p.price < :maxPrice ORDER BY p.price DESC")
     List<Product> findProductsUnderPrice(Double maxPrice);
+
+    // ==================== READ-ONLY PROJECTIONS ====================
+    // Select only the columns needed for a response straight into ProductView records
+
+    String PRODUCT_VIEW = "new com.example.connectionpool.dto.ProductView(p.id, p.name, p.description, " +
+            "p.price, p.stockQuantity, p.externalApiResponse, p.lastUpdated, p.version)";
+
+    /**
+     * Single-row lookups use ProductJdbcRepository.findViewById instead: for one row the
+     * query-method overhead outweighs the saved hydration (see /api/monitoring/products/projection-benchmark).
+     */
+    @Query("SELECT " + PRODUCT_VIEW + " FROM Product p WHERE p.id = :id")
+    Optional<ProductView> findViewById(Long id);
+
+    @Query("SELECT " + PRODUCT_VIEW + " FROM Product p ORDER BY p.id")
+    List<ProductView> findAllViews();
+
+    // ==================== KEYSET (CURSOR) PAGINATION ====================
+    // Each page continues from the last row of the previous one, so page N costs the same as page 1
+    // (no OFFSET scan). Callers fetch limit + 1 rows to know whether another page exists.
+
+    @Query("SELECT " + PRODUCT_VIEW + " FROM Product p ORDER BY p.id ASC")
+    List<ProductView> findViewsOrderedById(Limit limit);
+
+    @Query("SELECT " + PRODUCT_VIEW + " FROM Product p WHERE p.id > :id ORDER BY p.id ASC")
+    List<ProductView> findViewsOrderedByIdAfter(Long id, Limit limit);
+
+    @Query("SELECT " + PRODUCT_VIEW + " FROM Product p ORDER BY p.price ASC, p.id ASC")
+    List<ProductView> findViewsOrderedByPrice(Limit limit);
+
+    /**
+     * Next page in (price, id) order; the leading price >= :price range lets H2 seek into idx_products_price
+     */
+    @Query("SELECT " + PRODUCT_VIEW + " FROM Product p WHERE p.price >= :price AND (p.price > :price OR p.id > :id) " +
+           "ORDER BY p.price ASC, p.id ASC")
+    List<ProductView> findViewsOrderedByPriceAfter(Double price, Long id, Limit limit);
+
+    /**
+     * Optimistic conditional update used by ProductService.processProduct.
+     * Only applies if the row still has the version that was read; returns 0 on conflict.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.externalApiResponse = :externalApiResponse, p.stockQuantity = :stockQuantity, " +
+           "p.lastUpdated = :lastUpdated, p.version = p.version + 1 WHERE p.id = :id AND p.version = :version")
+    int updateProcessedIfVersionMatches(Long id, Long version, String externalApiResponse,
+                                        Integer stockQuantity, LocalDateTime lastUpdated);
 }
 
@@ -0,0 +1,396 @@
+package com.example.connectionpool.repository;
+
+import com.example.connectionpool.entity.Product;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.service.HikariPools;
+import com.example.connectionpool.service.LatencyHistogram;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Products hash-partitioned by id across N in-memory H2 databases (product.sharding.enabled=true).
+ *
+ * Every shard is its own H2 database with its own Hikari pool (HikariPool-shard-N), so lookups and
+ * writes no longer queue on a single database and pool. findById and save go to the one shard that
+ * owns the id. findAll, findByStockQuantityGreaterThan and findProductsUnderPrice run on every shard
+ * in parallel; each shard returns its rows already sorted by the query's ORDER BY, and the sorted
+ * lists are merged, so the result has the same order the single-database query would return.
+ *
+ * The shard pools are not DataSource beans, so that nothing injecting a DataSource by type picks
+ * one up; they are passed through the same post-processors as the bean pools (admission control,
+ * bulkheads, hold-time tracking) and registered with HikariPools for monitoring and warm-up.
+ *
+ * At startup the shards get the schema and a copy of the primary database's products. After that
+ * the sharded store is independent of it: ids for new products come from this repository, not
+ * from the IDENTITY column, and writes on either side are not seen by the other. ProductDataGenerator
+ * calls reload() after every run, so generated products reach the shards too.
+ */
+@Repository
+@ConditionalOnProperty(name = "product.sharding.enabled", havingValue = "true")
+@DependsOnDatabaseInitialization
+@DependsOn("productDataSnapshot")
+@Slf4j
+public class ShardedProductRepository implements InitializingBean, DisposableBean {
+
+    private static final String COLUMNS =
+            "id, name, description, price, stock_quantity, external_api_response, last_updated, created_at, version";
+
+    private static final String SELECT_PRODUCTS = "SELECT " + COLUMNS + " FROM products";
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PRODUCT =
+            "UPDATE products SET name = ?, description = ?, price = ?, stock_quantity = ?, external_api_response = ?, " +
+            "last_updated = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final RowMapper<Product> PRODUCT_MAPPER = (rs, rowNum) -> new Product(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getDouble("price"),
+            rs.getInt("stock_quantity"),
+            rs.getString("external_api_response"),
+            rs.getObject("last_updated", LocalDateTime.class),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getLong("version"));
+
+    private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+
+    /**
+     * findProductsUnderPrice orders by price descending; id breaks ties so the merge is deterministic
+     */
+    private static final Comparator<Product> BY_PRICE_DESC = Comparator.comparing(Product::getPrice).reversed()
+            .thenComparing(Product::getId);
+
+    private final DataSource primaryDataSource;
+    private final ResourceLoader resourceLoader;
+    private final String schemaLocation;
+    private final int copyBatchSize;
+    private final List<Shard> shards = new ArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder scatterQueries = new LongAdder();
+    private final LatencyHistogram scatterTime = new LatencyHistogram();
+    private final ExecutorService scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedProductRepository(DataSource dataSource,
+                                    DataSourceProperties properties,
+                                    Environment environment,
+                                    ResourceLoader resourceLoader,
+                                    ObjectProvider<MeterRegistry> meterRegistry,
+                                    AutowireCapableBeanFactory beanFactory,
+                                    HikariPools hikariPools,
+                                    @Value("${product.sharding.shards:4}") int shardCount,
+                                    @Value("${product.sharding.url:jdbc:h2:mem:products_shard_{shard};DB_CLOSE_DELAY=-1}") String url,
+                                    @Value("${product.sharding.schema:classpath:schema.sql}") String schemaLocation,
+                                    @Value("${product.sharding.copy-batch-size:1000}") int copyBatchSize) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("product.sharding.shards must be at least 1, got " + shardCount);
+        }
+        this.primaryDataSource = dataSource;
+        this.resourceLoader = resourceLoader;
+        this.schemaLocation = schemaLocation;
+        this.copyBatchSize = copyBatchSize;
+        Binder binder = Binder.get(environment);
+        for (int i = 0; i < shardCount; i++) {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl(url.replace("{shard}", String.valueOf(i)));
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setUsername(properties.determineUsername());
+            config.setPassword(properties.determinePassword());
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(config));
+            binder.bind("product.sharding.pool", Bindable.ofInstance(config));
+            config.setPoolName("HikariPool-shard-" + i);
+            meterRegistry.ifAvailable(config::setMetricRegistry);
+            HikariDataSource pool = new HikariDataSource(config);
+            DataSource wrapped = (DataSource) beanFactory.initializeBean(pool, config.getPoolName());
+            hikariPools.register(pool);
+            shards.add(new Shard(i, pool, wrapped));
+        }
+        log.info("Product sharding enabled: {} shards ({})", shardCount, url);
+    }
+
+    /**
+     * Creates the schema on every shard and distributes a copy of the primary database's products
+     */
+    @Override
+    public void afterPropertiesSet() {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(resourceLoader.getResource(schemaLocation));
+        for (Shard shard : shards) {
+            schema.execute(shard.dataSource);
+        }
+        copyFromPrimary();
+    }
+
+    /**
+     * Replaces the products on every shard with a fresh copy of the primary database's products;
+     * products created through the sharded store since the last copy are dropped
+     */
+    public synchronized void reload() {
+        for (Shard shard : shards) {
+            shard.jdbc.execute("TRUNCATE TABLE products");
+            shard.rows.set(0);
+        }
+        copyFromPrimary();
+    }
+
+    private void copyFromPrimary() {
+        long start = System.currentTimeMillis();
+        nextId.set(1);
+        List<List<Object[]>> pending = new ArrayList<>();
+        shards.forEach(shard -> pending.add(new ArrayList<>(copyBatchSize)));
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        primary.setFetchSize(copyBatchSize);
+        primary.query(SELECT_PRODUCTS + " ORDER BY id", (RowCallbackHandler) rs -> {
+            Product product = PRODUCT_MAPPER.mapRow(rs, 0);
+            Shard shard = shardOf(product.getId());
+            List<Object[]> batch = pending.get(shard.index);
+            batch.add(insertArgs(product));
+            if (batch.size() >= copyBatchSize) {
+                shard.insert(batch);
+            }
+            nextId.accumulateAndGet(product.getId() + 1, Math::max);
+        });
+        for (Shard shard : shards) {
+            shard.insert(pending.get(shard.index));
+        }
+
+        long total = shards.stream().mapToLong(shard -> shard.rows.get()).sum();
+        log.info("Copied {} products into {} shards in {}ms (rows per shard: {})", total, shards.size(),
+                System.currentTimeMillis() - start, shards.stream().map(shard -> shard.rows.get()).toList());
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Looks the product up on the shard that owns the id
+     */
+    public Optional<Product> findById(Long id) {
+        Shard shard = shardOf(id);
+        List<Product> rows = shard.timed(() -> shard.jdbc.query(SELECT_PRODUCTS + " WHERE id = ?", PRODUCT_MAPPER, id));
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Inserts a new product (id == null) under the next id, or updates an existing one on its shard.
+     * Updates check the version like a JPA save of a @Version entity does.
+     */
+    public Product save(Product product) {
+        LocalDateTime now = LocalDateTime.now();
+        if (product.getId() == null) {
+            product.setId(nextId.getAndIncrement());
+            product.setCreatedAt(now);
+            product.setLastUpdated(now);
+            product.setVersion(0L);
+            Shard shard = shardOf(product.getId());
+            shard.timed(() -> shard.jdbc.update(INSERT_PRODUCT, insertArgs(product)));
+            shard.rows.incrementAndGet();
+            return product;
+        }
+
+        Shard shard = shardOf(product.getId());
+        long version = product.getVersion() != null ? product.getVersion() : 0L;
+        int updated = shard.timed(() -> shard.jdbc.update(UPDATE_PRODUCT,
+                product.getName(), product.getDescription(), product.getPrice(), product.getStockQuantity(),
+                product.getExternalApiResponse(), now, product.getId(), version));
+        if (updated == 0) {
+            if (findById(product.getId()).isEmpty()) {
+                throw new ProductNotFoundException(product.getId());
+            }
+            throw new OptimisticLockingFailureException("Product " + product.getId() + " was updated concurrently");
+        }
+        product.setLastUpdated(now);
+        product.setVersion(version + 1);
+        return product;
+    }
+
+    public List<Product> findAll() {
+        return scatterGather(SELECT_PRODUCTS + " ORDER BY id", BY_ID);
+    }
+
+    public List<Product> findByStockQuantityGreaterThan(Integer quantity) {
+        return scatterGather(SELECT_PRODUCTS + " WHERE stock_quantity > ? ORDER BY id", BY_ID, quantity);
+    }
+
+    public List<Product> findProductsUnderPrice(Double maxPrice) {
+        return scatterGather(SELECT_PRODUCTS + " WHERE price < ? ORDER BY price DESC, id", BY_PRICE_DESC, maxPrice);
+    }
+
+    /**
+     * Runs the query on every shard in parallel and merges the per-shard results, each already sorted
+     * by the query's ORDER BY, with a k-way merge on the same order
+     */
+    private List<Product> scatterGather(String sql, Comparator<Product> order, Object... args) {
+        long start = System.nanoTime();
+        scatterQueries.increment();
+        List<CompletableFuture<List<Product>>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> shard.timed(() -> shard.jdbc.query(sql, PRODUCT_MAPPER, args)), scatterExecutor));
+        }
+        List<List<Product>> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<List<Product>> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        List<Product> merged = merge(results, order);
+        scatterTime.recordNanos(System.nanoTime() - start);
+        return merged;
+    }
+
+    private static List<Product> merge(List<List<Product>> sortedLists, Comparator<Product> order) {
+        int total = sortedLists.stream().mapToInt(List::size).sum();
+        List<Product> merged = new ArrayList<>(total);
+        // Heap entries are {list index, position in list}
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> order.compare(sortedLists.get(a[0]).get(a[1]), sortedLists.get(b[0]).get(b[1])));
+        for (int i = 0; i < sortedLists.size(); i++) {
+            if (!sortedLists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Product> list = sortedLists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (head[1] + 1 < list.size()) {
+                heads.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+
+    private Shard shardOf(long id) {
+        // Fibonacci hashing spreads consecutive ids evenly, whatever the shard count
+        return shards.get(Math.floorMod(Long.hashCode(id * 0x9E3779B97F4A7C15L), shards.size()));
+    }
+
+    private static Object[] insertArgs(Product product) {
+        return new Object[]{product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getStockQuantity(), product.getExternalApiResponse(), product.getLastUpdated(),
+                product.getCreatedAt(), product.getVersion()};
+    }
+
+    /**
+     * Per-shard pool state, rows and query latency, plus fan-out totals, for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> shardStats = new ArrayList<>();
+        for (Shard shard : shards) {
+            shardStats.add(shard.getStats());
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("shards", shardStats);
+        stats.put("shardCount", shards.size());
+        stats.put("scatterQueries", scatterQueries.sum());
+        stats.put("scatterTime", scatterTime.toMap());
+        stats.put("nextId", nextId.get());
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        scatterExecutor.shutdown();
+        shards.forEach(shard -> shard.pool.close());
+    }
+
+    private static final class Shard {
+
+        private final int index;
+        private final HikariDataSource pool;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbc;
+        private final AtomicLong rows = new AtomicLong();
+        private final LongAdder queries = new LongAdder();
+        private final LatencyHistogram queryTime = new LatencyHistogram();
+
+        private Shard(int index, HikariDataSource pool, DataSource dataSource) {
+            this.index = index;
+            this.pool = pool;
+            this.dataSource = dataSource;
+            this.jdbc = new JdbcTemplate(dataSource);
+        }
+
+        private <T> T timed(Supplier<T> query) {
+            long start = System.nanoTime();
+            try {
+                return query.get();
+            } finally {
+                queries.increment();
+                queryTime.recordNanos(System.nanoTime() - start);
+            }
+        }
+
+        private void insert(List<Object[]> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbc.batchUpdate(INSERT_PRODUCT, batch);
+            rows.addAndGet(batch.size());
+            batch.clear();
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("shard", index);
+            stats.put("poolName", pool.getPoolName());
+            stats.put("rows", rows.get());
+            stats.put("queries", queries.sum());
+            stats.put("queryTime", queryTime.toMap());
+            HikariPoolMXBean poolMXBean = pool.getHikariPoolMXBean();
+            if (poolMXBean != null) {
+                stats.put("active", poolMXBean.getActiveConnections());
+                stats.put("idle", poolMXBean.getIdleConnections());
+                stats.put("total", poolMXBean.getTotalConnections());
+                stats.put("waiting", poolMXBean.getThreadsAwaitingConnection());
+            }
+            stats.put("max", pool.getMaximumPoolSize());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.connectionpool.service;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource proxy that passes every borrow through the pool's {@link DatabaseAdmissionLimiter.Gate}.
+ *
+ * The permit is taken before the pool is asked for a connection and returned by the first close()
+ * of the returned connection, or right away if the pool fails to hand one out.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource {
+
+    private final DatabaseAdmissionLimiter.Gate gate;
+
+    public AdmissionControlledDataSource(DataSource targetDataSource, DatabaseAdmissionLimiter.Gate gate) {
+        super(targetDataSource);
+        this.gate = gate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long admittedAt = gate.admit();
+        try {
+            return admitted(super.getConnection(), admittedAt);
+        } catch (SQLException | RuntimeException e) {
+            gate.release(admittedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long admittedAt = gate.admit();
+        try {
+            return admitted(super.getConnection(username, password), admittedAt);
+        } catch (SQLException | RuntimeException e) {
+            gate.release(admittedAt);
+            throw e;
+        }
+    }
+
+    private Connection admitted(Connection target, long admittedAt) {
+        return ConnectionCloseHook.wrap(target, () -> gate.release(admittedAt));
+    }
+}
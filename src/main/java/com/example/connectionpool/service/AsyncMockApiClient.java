@@ -0,0 +1,210 @@
+package com.example.connectionpool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking version of {@link MockApiService#callMockApi} for /api/products/v2/{id}.
+ *
+ * The call is sent with the JDK HttpClient's sendAsync, so no thread waits for the postman-echo
+ * delay: the returned future completes when the response arrives, and the stages after it run on
+ * virtual threads. The client speaks HTTP/1.1, where every call in flight occupies its own
+ * keep-alive socket, and at most max-connections calls are in flight. Further calls wait in a FIFO
+ * queue of up to max-pending without holding a thread; beyond that they fail fast. The v2
+ * concurrency limit is therefore the number of sockets, not the size of taskExecutor.
+ *
+ * Like the blocking call, failures (including non-2xx responses) complete the future with an
+ * "External API Error" message.
+ */
+@Component
+@Slf4j
+public class AsyncMockApiClient implements DisposableBean {
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService completionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final String delayApiBaseUrl;
+    private final int delaySeconds;
+    private final boolean enabled;
+    private final int maxConnections;
+    private final int maxPending;
+    private final Duration responseTimeout;
+
+    private final Semaphore connections;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AsyncMockApiClient(ObjectMapper objectMapper,
+                              @Value("${external.delay.api.base-url}") String delayApiBaseUrl,
+                              @Value("${external.delay.api.delay-seconds:2}") int delaySeconds,
+                              @Value("${external.delay.api.async.enabled:true}") boolean enabled,
+                              @Value("${external.delay.api.async.max-connections:200}") int maxConnections,
+                              @Value("${external.delay.api.async.max-pending:1000}") int maxPending,
+                              @Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+                              @Value("${http.client.response-timeout-ms:15000}") long responseTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.delayApiBaseUrl = delayApiBaseUrl;
+        this.delaySeconds = delaySeconds;
+        this.enabled = enabled;
+        this.maxConnections = maxConnections;
+        this.maxPending = maxPending;
+        this.responseTimeout = Duration.ofMillis(responseTimeoutMs);
+        this.connections = new Semaphore(maxConnections);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(completionExecutor)
+                .build();
+        log.info("Async mock API client {} ({} connections, {} pending)",
+                enabled ? "enabled" : "disabled", maxConnections, maxPending);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calls the Postman Echo delay API; the future completes with the same message as callMockApi
+     */
+    public CompletableFuture<String> callMockApi(Long productId) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Runnable send = () -> send(productId, result);
+        // The fast path is only taken with an empty queue, so new calls cannot overtake queued ones
+        if (pending.isEmpty() && connections.tryAcquire()) {
+            send.run();
+            return result;
+        }
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            rejected.increment();
+            result.complete(String.format("External API Error: %d calls in flight and %d queued (Product %d)",
+                    maxConnections, maxPending, productId));
+            return result;
+        }
+        pending.add(send);
+        // A connection may have been released between tryAcquire and add
+        drain();
+        return result;
+    }
+
+    private void send(Long productId, CompletableFuture<String> result) {
+        int inFlight = maxConnections - connections.availablePermits();
+        peakInFlight.accumulateAndGet(inFlight, Math::max);
+        String apiUrl = String.format("%s/%d", delayApiBaseUrl, delaySeconds);
+        log.info("[ASYNC-HTTP] Calling Postman Echo API: {} for product ID: {}", apiUrl, productId);
+
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> response;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl))
+                    .timeout(responseTimeout)
+                    .GET()
+                    .build();
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((httpResponse, error) -> {
+            release();
+            long elapsed = System.nanoTime() - start;
+            latency.recordNanos(elapsed);
+            if (error != null) {
+                failed.increment();
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                log.error("[ASYNC-HTTP] Error calling external API: {}", cause.toString());
+                result.complete(String.format("External API Error: %s (Product %d)", cause, productId));
+                return;
+            }
+            if (httpResponse.statusCode() / 100 != 2) {
+                // The JDK client does not fail on error statuses; treat them like RestTemplate does
+                failed.increment();
+                log.error("[ASYNC-HTTP] External API answered HTTP {}", httpResponse.statusCode());
+                result.complete(String.format("External API Error: HTTP %d (Product %d)",
+                        httpResponse.statusCode(), productId));
+                return;
+            }
+            completed.increment();
+            result.complete(String.format(
+                    "External API Response: Product %d processed successfully (took %dms, delay: %s seconds)",
+                    productId, elapsed / 1_000_000, delayOf(httpResponse)));
+        });
+    }
+
+    private String delayOf(HttpResponse<byte[]> response) {
+        try {
+            Object delay = objectMapper.readValue(response.body(), Map.class).get("delay");
+            return delay != null ? delay.toString() : String.valueOf(delaySeconds);
+        } catch (Exception e) {
+            return String.valueOf(delaySeconds);
+        }
+    }
+
+    private void release() {
+        connections.release();
+        drain();
+    }
+
+    /**
+     * Hands free connections to queued calls, oldest first
+     */
+    private void drain() {
+        while (!pending.isEmpty() && connections.tryAcquire()) {
+            Runnable next = pending.poll();
+            if (next == null) {
+                // Another thread took the last queued call; give the connection back
+                connections.release();
+                return;
+            }
+            pendingCount.decrementAndGet();
+            next.run();
+        }
+    }
+
+    /**
+     * In-flight calls, queue and call latency for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxConnections", maxConnections);
+        stats.put("maxPending", maxPending);
+        stats.put("inFlight", maxConnections - connections.availablePermits());
+        stats.put("peakInFlight", peakInFlight.get());
+        stats.put("pending", pendingCount.get());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("latency", latency.toMap());
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        completionExecutor.shutdownNow();
+    }
+}
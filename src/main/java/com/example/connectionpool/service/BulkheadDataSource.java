@@ -0,0 +1,54 @@
+package com.example.connectionpool.service;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource proxy that charges every borrow to the current endpoint's {@link ConnectionBulkheads} quota.
+ *
+ * The permit is taken before admission control and the pool are asked for a connection, so a full
+ * bulkhead never queues in front of the other endpoints, and is returned by the first close() of the
+ * returned connection, or right away if the borrow fails.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final String poolName;
+    private final ConnectionBulkheads bulkheads;
+
+    public BulkheadDataSource(DataSource targetDataSource, String poolName, ConnectionBulkheads bulkheads) {
+        super(targetDataSource);
+        this.poolName = poolName;
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionBulkheads.Bulkhead bulkhead = bulkheads.acquire(poolName);
+        if (bulkhead == null) {
+            return super.getConnection();
+        }
+        try {
+            return ConnectionCloseHook.wrap(super.getConnection(), bulkhead::release);
+        } catch (SQLException | RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ConnectionBulkheads.Bulkhead bulkhead = bulkheads.acquire(poolName);
+        if (bulkhead == null) {
+            return super.getConnection(username, password);
+        }
+        try {
+            return ConnectionCloseHook.wrap(super.getConnection(username, password), bulkhead::release);
+        } catch (SQLException | RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+}
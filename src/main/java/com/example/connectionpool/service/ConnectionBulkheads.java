@@ -0,0 +1,266 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.exception.BulkheadFullException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint connection quotas (bulkheads), so one flooded endpoint cannot take every connection.
+ *
+ * A bulkhead is a semaphore keyed by handler method ("ProductController.processRandomProduct"),
+ * sized by hikari.bulkhead.quotas. {@link BulkheadDataSource} takes a permit before the borrow
+ * reaches admission control and Hikari, and returns it when the connection is closed. A borrower
+ * that gets no permit within max-wait-ms fails with {@link BulkheadFullException} (503), leaving
+ * the remaining connections to the other endpoints.
+ *
+ * The handler method is bound to the request thread by BulkheadWebConfig, carried over to
+ * taskExecutor tasks by {@link #propagate(Runnable)} and to services that borrow on their own
+ * threads (ProductBatchLoader) by {@link #bind}. Borrows outside a request (startup, schedulers)
+ * and handlers without a quota (unless default-quota is set) are not limited.
+ */
+@Component
+@Slf4j
+public class ConnectionBulkheads {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final int defaultQuota;
+    private final long maxWaitMs;
+
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+    private final Map<String, Bulkhead> defaultBulkheads = new ConcurrentHashMap<>();
+
+    public ConnectionBulkheads(ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${hikari.bulkhead.enabled:false}") boolean enabled,
+                               @Value("${hikari.bulkhead.quotas:}") String quotas,
+                               @Value("${hikari.bulkhead.default-quota:0}") int defaultQuota,
+                               @Value("${hikari.bulkhead.max-wait-ms:100}") long maxWaitMs) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.defaultQuota = defaultQuota;
+        this.maxWaitMs = maxWaitMs;
+        for (String entry : quotas.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0 || entry.substring(0, separator).isBlank()) {
+                throw new IllegalArgumentException("hikari.bulkhead.quotas entry must be Handler.method:quota, got " + entry);
+            }
+            String name = entry.substring(0, separator).trim();
+            int quota;
+            try {
+                quota = Integer.parseInt(entry.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("hikari.bulkhead.quotas entry quota must be a positive integer, got " + entry, e);
+            }
+            if (quota < 1) {
+                // A zero-permit bulkhead would answer every borrow with 503 after max-wait
+                throw new IllegalArgumentException("hikari.bulkhead.quotas entry quota must be a positive integer, got " + entry);
+            }
+            bulkheads.put(name, new Bulkhead(name, quota));
+        }
+        log.info("Connection bulkheads {} (quotas: {}, default quota: {}, max wait {}ms)",
+                enabled ? "enabled" : "disabled", quotas.isBlank() ? "none" : quotas,
+                defaultQuota > 0 ? defaultQuota : "unlimited", maxWaitMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Binds the handler method of the current request to this thread
+     */
+    public static void enter(String bulkhead) {
+        CURRENT.set(bulkhead);
+    }
+
+    public static void exit() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Bulkhead bound to this thread, or null outside a request
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * TaskDecorator for taskExecutor: @Async and supplyAsync work counts against the bulkhead of the
+     * request that submitted it
+     */
+    public static Runnable propagate(Runnable task) {
+        return bind(CURRENT.get(), task);
+    }
+
+    /**
+     * Runs the task under the given bulkhead, for work that borrows connections on another
+     * thread on behalf of a request (e.g. a ProductBatchLoader batch)
+     */
+    public static Runnable bind(String bulkhead, Runnable task) {
+        if (bulkhead == null) {
+            return task;
+        }
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.set(bulkhead);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * Takes a permit from the current handler's bulkhead
+     *
+     * @return the bulkhead to release when the connection is closed, or null when the borrow is not limited
+     */
+    public Bulkhead acquire(String pool) throws SQLException {
+        if (!enabled) {
+            return null;
+        }
+        Bulkhead bulkhead = bulkheadOf(CURRENT.get());
+        if (bulkhead == null) {
+            return null;
+        }
+        bulkhead.acquire(pool);
+        return bulkhead;
+    }
+
+    private Bulkhead bulkheadOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        Bulkhead bulkhead = bulkheads.get(name);
+        if (bulkhead != null || defaultQuota <= 0) {
+            return bulkhead;
+        }
+        return defaultBulkheads.computeIfAbsent(name, key -> new Bulkhead(key, defaultQuota));
+    }
+
+    /**
+     * Publishes in-use connections and rejections per bulkhead as db.bulkhead.* meters
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerMeters() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null || !enabled) {
+            return;
+        }
+        // Default-quota bulkheads appear on first use and are only reported by getStats()
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            Gauge.builder("db.bulkhead.in.use", bulkhead.inUse, AtomicInteger::get)
+                    .tag("bulkhead", bulkhead.name)
+                    .description("Connections held by the endpoint")
+                    .register(registry);
+            FunctionCounter.builder("db.bulkhead.rejected", bulkhead.rejected, LongAdder::sum)
+                    .tag("bulkhead", bulkhead.name)
+                    .description("Borrows rejected with 503 because the endpoint's quota was used up")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Quota, usage and rejections of every bulkhead for the monitoring endpoint and dashboard
+     */
+    public Map<String, Object> getStats() {
+        List<Bulkhead> all = new ArrayList<>(bulkheads.values());
+        all.addAll(defaultBulkheads.values());
+        all.sort(Comparator.comparing(b -> b.name));
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Bulkhead bulkhead : all) {
+            list.add(bulkhead.getStats());
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("defaultQuota", defaultQuota);
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("bulkheads", list);
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    /**
+     * Connection quota of one handler method
+     */
+    public final class Bulkhead {
+
+        private final String name;
+        private final int quota;
+        private final Semaphore semaphore;
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Bulkhead(String name, int quota) {
+            this.name = name;
+            this.quota = quota;
+            this.semaphore = new Semaphore(quota, true);
+        }
+
+        private void acquire(String pool) throws SQLException {
+            try {
+                if (!semaphore.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                    rejected.increment();
+                    log.debug("Bulkhead {} full ({} connections), rejected borrow from pool {}", name, quota, pool);
+                    throw new BulkheadFullException(pool, name, 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for bulkhead " + name, e);
+            }
+            acquired.increment();
+            peak.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        }
+
+        public void release() {
+            inUse.decrementAndGet();
+            semaphore.release();
+        }
+
+        private Map<String, Object> getStats() {
+            int used = inUse.get();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("name", name);
+            stats.put("quota", quota);
+            stats.put("inUse", used);
+            stats.put("utilization", String.format("%.1f%%", quota > 0 ? used * 100.0 / quota : 0.0));
+            stats.put("peak", peak.get());
+            stats.put("waiting", semaphore.getQueueLength());
+            stats.put("acquired", acquired.sum());
+            stats.put("rejected", rejected.sum());
+            return stats;
+        }
+    }
+}
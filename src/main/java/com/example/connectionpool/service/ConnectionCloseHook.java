@@ -0,0 +1,64 @@
+package com.example.connectionpool.service;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Connection proxy that runs a callback after the first close(), for the DataSource wrappers that
+ * account for borrowed connections (hold-time tracking, admission control, bulkheads).
+ *
+ * Hikari treats a second close() as a no-op, so only the first one ends the borrow. The proxy
+ * implements Spring's ConnectionProxy, so DataSourceUtils can still reach the pooled connection.
+ */
+final class ConnectionCloseHook implements InvocationHandler {
+
+    private final Connection target;
+    private Runnable afterClose;
+
+    private ConnectionCloseHook(Connection target, Runnable afterClose) {
+        this.target = target;
+        this.afterClose = afterClose;
+    }
+
+    static Connection wrap(Connection target, Runnable afterClose) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConnectionCloseHook(target, afterClose));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "getTargetConnection":
+                return target;
+            case "close":
+                Runnable callback = afterClose;
+                afterClose = null;
+                try {
+                    return invokeTarget(method, args);
+                } finally {
+                    if (callback != null) {
+                        callback.run();
+                    }
+                }
+            default:
+                return invokeTarget(method, args);
+        }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.connectionpool.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per call site acquisition-wait and hold-time histograms for borrowed Hikari connections.
+ *
+ * {@link HoldTimeTrackingDataSource} reports every borrow here. The call site is the first service
+ * method on the borrowing thread's stack (e.g. ProductService.processProduct), or the first
+ * application frame when no service is involved. Spring proxy frames count as their target class,
+ * because a @Transactional method borrows its connection in the proxy, before its own frame exists.
+ *
+ * Call sites are kept per pool, so with read/write routing a method shows up under the pool it used.
+ * Sorting the call sites by total hold time shows which code paths keep the pool busy.
+ */
+@Component
+@Slf4j
+public class ConnectionHoldTimeTracker {
+
+    private static final String APP_PACKAGE = "com.example.connectionpool.";
+    private static final String SERVICE_PACKAGE = APP_PACKAGE + "service.";
+    private static final String OTHER = "other";
+
+    private final boolean enabled;
+    private final int maxCallSites;
+
+    private final StackWalker stackWalker = StackWalker.getInstance();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CallSite>> poolCallSites = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> frameNames = new ConcurrentHashMap<>();
+    private volatile long resetAt = System.currentTimeMillis();
+
+    public ConnectionHoldTimeTracker(@Value("${hikari.holdtime.enabled:true}") boolean enabled,
+                                     @Value("${hikari.holdtime.max-call-sites:200}") int maxCallSites) {
+        this.enabled = enabled;
+        this.maxCallSites = maxCallSites;
+        log.info("Connection hold-time tracking {} (max call sites: {})", enabled ? "enabled" : "disabled", maxCallSites);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a successful borrow; the returned lease records the hold time when the connection is closed
+     */
+    public Lease borrowed(String pool, long acquireNanos) {
+        CallSite callSite = callSite(pool);
+        callSite.acquire.recordNanos(acquireNanos);
+        callSite.inUse.incrementAndGet();
+        return new Lease(callSite, System.nanoTime());
+    }
+
+    /**
+     * Records a borrow that failed, usually a connection-timeout while the pool was exhausted
+     */
+    public void acquireFailed(String pool, long acquireNanos) {
+        CallSite callSite = callSite(pool);
+        callSite.acquire.recordNanos(acquireNanos);
+        callSite.acquireFailures.increment();
+    }
+
+    private CallSite callSite(String pool) {
+        ConcurrentHashMap<String, CallSite> callSites = poolCallSites.computeIfAbsent(pool, key -> new ConcurrentHashMap<>());
+        String name = resolveCallSite();
+        CallSite callSite = callSites.get(name);
+        if (callSite != null) {
+            return callSite;
+        }
+        // Bound the map: lambdas or generated classes must not grow it without limit
+        return callSites.computeIfAbsent(callSites.size() < maxCallSites ? name : OTHER, key -> new CallSite());
+    }
+
+    private String resolveCallSite() {
+        return stackWalker.walk(frames -> {
+            String firstAppFrame = null;
+            Iterator<StackWalker.StackFrame> iterator = frames.iterator();
+            while (iterator.hasNext()) {
+                StackWalker.StackFrame frame = iterator.next();
+                String className = frame.getClassName();
+                if (!className.startsWith(APP_PACKAGE)
+                        || className.startsWith(HoldTimeTrackingDataSource.class.getName())
+                        || className.equals(ConnectionHoldTimeTracker.class.getName())) {
+                    continue;
+                }
+                if (className.startsWith(SERVICE_PACKAGE)) {
+                    return frameName(className, frame.getMethodName());
+                }
+                if (firstAppFrame == null) {
+                    firstAppFrame = frameName(className, frame.getMethodName());
+                }
+            }
+            return firstAppFrame != null ? firstAppFrame : OTHER;
+        });
+    }
+
+    /**
+     * "SimpleClassName.method", with Spring CGLIB proxies ("Foo$$SpringCGLIB$$0") mapped to their target class
+     * and lambdas to their enclosing method
+     */
+    private String frameName(String className, String methodName) {
+        return frameNames.computeIfAbsent(className + '#' + methodName, key -> {
+            int proxySuffix = className.indexOf("$$");
+            String targetClass = proxySuffix > 0 ? className.substring(0, proxySuffix) : className;
+            // "lambda$dispatch$4" is reported as the enclosing method "dispatch"
+            String method = methodName.startsWith("lambda$") && methodName.indexOf('$', 7) > 7
+                    ? methodName.substring(7, methodName.indexOf('$', 7)) : methodName;
+            return targetClass.substring(targetClass.lastIndexOf('.') + 1) + '.' + method;
+        });
+    }
+
+    public void reset() {
+        poolCallSites.clear();
+        resetAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Call sites (per pool) ordered by total hold time, each with its acquisition and hold-time histograms
+     */
+    public Map<String, Object> getStats() {
+        List<PoolCallSite> entries = new ArrayList<>();
+        poolCallSites.forEach((pool, callSites) -> callSites.forEach((name, callSite) ->
+                entries.add(new PoolCallSite(pool, name, callSite))));
+        entries.sort(Comparator.comparingLong((PoolCallSite e) -> e.callSite.hold.getTotalMicros()).reversed());
+        long totalHoldMicros = entries.stream().mapToLong(e -> e.callSite.hold.getTotalMicros()).sum();
+
+        List<Map<String, Object>> sites = new ArrayList<>();
+        for (PoolCallSite entry : entries) {
+            CallSite callSite = entry.callSite;
+            long holdMicros = callSite.hold.getTotalMicros();
+            Map<String, Object> site = new HashMap<>();
+            site.put("callSite", entry.name);
+            site.put("pool", entry.pool);
+            site.put("borrows", callSite.acquire.getCount() - callSite.acquireFailures.sum());
+            site.put("acquireFailures", callSite.acquireFailures.sum());
+            site.put("inUse", callSite.inUse.get());
+            site.put("totalHoldMs", holdMicros / 1000);
+            site.put("holdShare", totalHoldMicros > 0 ? String.format("%.1f%%", holdMicros * 100.0 / totalHoldMicros) : "0.0%");
+            site.put("acquire", callSite.acquire.toMap());
+            site.put("hold", callSite.hold.toMap());
+            sites.add(site);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("since", resetAt);
+        stats.put("totalHoldMs", totalHoldMicros / 1000);
+        stats.put("callSites", sites);
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    private record PoolCallSite(String pool, String name, CallSite callSite) {
+    }
+
+    private static final class CallSite {
+        final LatencyHistogram acquire = new LatencyHistogram();
+        final LatencyHistogram hold = new LatencyHistogram();
+        final LongAdder acquireFailures = new LongAdder();
+        final AtomicInteger inUse = new AtomicInteger();
+    }
+
+    /**
+     * One borrowed connection; {@link #released()} is called once, when the connection is closed
+     */
+    public static final class Lease {
+        private final CallSite callSite;
+        private final long borrowedAtNanos;
+
+        private Lease(CallSite callSite, long borrowedAtNanos) {
+            this.callSite = callSite;
+            this.borrowedAtNanos = borrowedAtNanos;
+        }
+
+        public void released() {
+            callSite.hold.recordNanos(System.nanoTime() - borrowedAtNanos);
+            callSite.inUse.decrementAndGet();
+        }
+    }
+}
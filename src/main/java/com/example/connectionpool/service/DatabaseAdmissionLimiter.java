@@ -0,0 +1,301 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.exception.DatabaseOverloadedException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fair admission control in front of every Hikari pool.
+ *
+ * Each pool gets a gate: a fair semaphore with one permit per connection (following maximumPoolSize,
+ * so the auto-sizer's changes apply) and a bounded FIFO queue of borrowers. A borrower that cannot
+ * get a permit right away is shed with {@link DatabaseOverloadedException} (503 + Retry-After) when
+ * - the queue already holds max-queue borrowers, or
+ * - the expected wait, (queued + 1) x mean hold time / permits, exceeds the queue-time budget, or
+ * - it has waited the whole budget without getting a permit.
+ * Otherwise it waits its turn in arrival order.
+ *
+ * Without the gate, thousands of virtual threads would wait inside Hikari until connection-timeout
+ * (10s); with it a request either gets a connection within the budget or fails fast.
+ */
+@Component
+@Slf4j
+public class DatabaseAdmissionLimiter {
+
+    public static final String SHED_QUEUE_FULL = "queue-full";
+    public static final String SHED_EXPECTED_WAIT = "expected-wait";
+    public static final String SHED_TIMEOUT = "timeout";
+
+    private static final double HOLD_EWMA_WEIGHT = 0.1;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final long queueBudgetMs;
+    private final int maxQueue;
+    private final double initialHoldMs;
+
+    private final ConcurrentHashMap<String, Gate> gates = new ConcurrentHashMap<>();
+
+    public DatabaseAdmissionLimiter(ObjectProvider<MeterRegistry> meterRegistry,
+                                    @Value("${hikari.admission.enabled:false}") boolean enabled,
+                                    @Value("${hikari.admission.queue-budget-ms:500}") long queueBudgetMs,
+                                    @Value("${hikari.admission.max-queue:200}") int maxQueue,
+                                    @Value("${hikari.admission.initial-hold-ms:5}") double initialHoldMs) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.queueBudgetMs = queueBudgetMs;
+        this.maxQueue = maxQueue;
+        this.initialHoldMs = initialHoldMs;
+        log.info("DB admission control {} (queue budget {}ms, max queue {} per pool)",
+                enabled ? "enabled" : "disabled", queueBudgetMs, maxQueue);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The gate of a pool, created on first use
+     */
+    public Gate gate(String poolName, HikariDataSource pool) {
+        return gates.computeIfAbsent(poolName, name -> new Gate(name, pool));
+    }
+
+    /**
+     * Publishes queue depth, admitted and shed counts per pool as db.admission.* meters
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerMeters() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        for (Gate gate : gates.values()) {
+            Gauge.builder("db.admission.queue.depth", gate.semaphore, Semaphore::getQueueLength)
+                    .tag("pool", gate.poolName)
+                    .description("Borrowers queued for a connection permit")
+                    .register(registry);
+            FunctionCounter.builder("db.admission.admitted", gate.admitted, LongAdder::sum)
+                    .tag("pool", gate.poolName)
+                    .register(registry);
+            gate.shed.forEach((reason, counter) -> FunctionCounter.builder("db.admission.shed", counter, LongAdder::sum)
+                    .tag("pool", gate.poolName)
+                    .tag("reason", reason)
+                    .description("Borrowers rejected with 503 instead of queueing")
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Per-pool admission statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> pools = new ArrayList<>();
+        for (Gate gate : gates.values()) {
+            pools.add(gate.getStats());
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queueBudgetMs", queueBudgetMs);
+        stats.put("maxQueue", maxQueue);
+        stats.put("pools", pools);
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    /**
+     * Clears the admitted, queued and shed counts and the queue-time histogram of every pool
+     */
+    public void resetStats() {
+        for (Gate gate : gates.values()) {
+            gate.queueTime.reset();
+            gate.admitted.reset();
+            gate.queued.reset();
+            gate.shed.values().forEach(LongAdder::reset);
+        }
+    }
+
+    /**
+     * The gate of a pool, or null when the pool has none (admission control off)
+     */
+    public Gate find(String poolName) {
+        return gates.get(poolName);
+    }
+
+    /**
+     * Admission state of one pool, or null when the pool has no gate
+     */
+    public Map<String, Object> getStats(String poolName) {
+        Gate gate = gates.get(poolName);
+        return gate != null ? gate.getStats() : null;
+    }
+
+    /**
+     * Admission gate of one pool
+     */
+    public final class Gate {
+
+        private final String poolName;
+        private final HikariDataSource pool;
+        private final ResizableSemaphore semaphore;
+        private final LatencyHistogram queueTime = new LatencyHistogram();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder queued = new LongAdder();
+        private final Map<String, LongAdder> shed = Map.of(
+                SHED_QUEUE_FULL, new LongAdder(),
+                SHED_EXPECTED_WAIT, new LongAdder(),
+                SHED_TIMEOUT, new LongAdder());
+        private volatile int permits;
+        private volatile double meanHoldMs = initialHoldMs;
+
+        private Gate(String poolName, HikariDataSource pool) {
+            this.poolName = poolName;
+            this.pool = pool;
+            this.permits = pool.getMaximumPoolSize();
+            this.semaphore = new ResizableSemaphore(permits);
+        }
+
+        /**
+         * Waits for a permit in arrival order, or sheds the borrower
+         *
+         * @return the admission start in System.nanoTime(), to be passed to {@link #release(long)}
+         */
+        public long admit() throws SQLException {
+            resizeIfNeeded();
+            long start = System.nanoTime();
+            try {
+                // tryAcquire(0, unit) respects fairness; the no-arg tryAcquire would barge past the queue
+                if (semaphore.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                    queueTime.recordNanos(System.nanoTime() - start);
+                    admitted.increment();
+                    return System.nanoTime();
+                }
+
+                int waiting = semaphore.getQueueLength();
+                if (waiting >= maxQueue) {
+                    throw shed(SHED_QUEUE_FULL, expectedWaitMs(waiting));
+                }
+                double expectedWaitMs = expectedWaitMs(waiting);
+                if (expectedWaitMs > queueBudgetMs) {
+                    throw shed(SHED_EXPECTED_WAIT, expectedWaitMs);
+                }
+                queued.increment();
+                if (!semaphore.tryAcquire(queueBudgetMs, TimeUnit.MILLISECONDS)) {
+                    throw shed(SHED_TIMEOUT, expectedWaitMs(semaphore.getQueueLength()));
+                }
+                queueTime.recordNanos(System.nanoTime() - start);
+                admitted.increment();
+                return System.nanoTime();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for admission to pool " + poolName, e);
+            }
+        }
+
+        /**
+         * Borrowers currently waiting for a permit
+         */
+        public int getQueueDepth() {
+            return semaphore.getQueueLength();
+        }
+
+        /**
+         * Histogram of the time from arrival to permit, including borrowers admitted at once
+         */
+        public LatencyHistogram getQueueTime() {
+            return queueTime;
+        }
+
+        /**
+         * Returns the permit once the connection is closed (or could not be borrowed after all)
+         */
+        public void release(long admittedAtNanos) {
+            double holdMs = (System.nanoTime() - admittedAtNanos) / 1_000_000.0;
+            // Benign race: concurrent updates may lose a sample, which an average can afford
+            meanHoldMs += (holdMs - meanHoldMs) * HOLD_EWMA_WEIGHT;
+            semaphore.release();
+        }
+
+        private double expectedWaitMs(int waiting) {
+            return (waiting + 1) * meanHoldMs / Math.max(1, permits);
+        }
+
+        private DatabaseOverloadedException shed(String reason, double expectedWaitMs) {
+            shed.get(reason).increment();
+            long retryAfterSeconds = Math.max(1, (long) Math.ceil(Math.max(expectedWaitMs, queueBudgetMs) / 1000.0));
+            log.debug("Shed borrower of pool {} ({}, expected wait {}ms)", poolName, reason, Math.round(expectedWaitMs));
+            return new DatabaseOverloadedException(poolName, reason, retryAfterSeconds);
+        }
+
+        /**
+         * Keeps one permit per connection when maximumPoolSize changes at runtime
+         */
+        private void resizeIfNeeded() {
+            int target = pool.getHikariConfigMXBean().getMaximumPoolSize();
+            if (target == permits) {
+                return;
+            }
+            synchronized (this) {
+                int delta = target - permits;
+                if (delta > 0) {
+                    semaphore.release(delta);
+                } else if (delta < 0) {
+                    semaphore.reducePermits(-delta);
+                }
+                permits = target;
+            }
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> shedCounts = new HashMap<>();
+            long shedTotal = 0;
+            for (Map.Entry<String, LongAdder> entry : shed.entrySet()) {
+                shedCounts.put(entry.getKey(), entry.getValue().sum());
+                shedTotal += entry.getValue().sum();
+            }
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("poolName", poolName);
+            stats.put("permits", permits);
+            stats.put("availablePermits", semaphore.availablePermits());
+            stats.put("queueDepth", semaphore.getQueueLength());
+            stats.put("admitted", admitted.sum());
+            stats.put("queued", queued.sum());
+            stats.put("shed", shedTotal);
+            stats.put("shedByReason", shedCounts);
+            stats.put("meanHoldMs", Math.round(meanHoldMs * 100) / 100.0);
+            stats.put("expectedWaitMs", Math.round(expectedWaitMs(semaphore.getQueueLength()) * 100) / 100.0);
+            stats.put("queueTime", queueTime.toMap());
+            return stats;
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
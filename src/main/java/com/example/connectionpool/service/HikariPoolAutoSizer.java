@@ -0,0 +1,343 @@
+package com.example.connectionpool.service;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Control loop that resizes every Hikari pool (write, read and shards) at runtime.
+ *
+ * Every interval it samples, per pool, the threads waiting for a connection, the mean acquisition time
+ * since the previous sample (hikaricp.connections.acquire timer), active connections and, when
+ * admission control is on, the borrowers queued at the pool's gate and their mean queue time since
+ * the previous sample. The gate admits at most maximumPoolSize borrowers, so under load the waiting
+ * happens there rather than inside Hikari. Then:
+ * - grows maximumPoolSize by step-up after grow-after consecutive samples under pressure
+ *   (anyone waiting in Hikari or at the gate, or mean acquisition or gate wait above the threshold)
+ * - shrinks it by step-down after shrink-after consecutive quiet samples
+ *   (nobody waiting, fast acquisition, active below shrink-utilization of the pool)
+ * always within [min-pool-size, max-pool-size] and never twice within the cooldown of that pool.
+ * minimumIdle follows maximumPoolSize with the pool's configured minimum-idle / maximum-pool-size ratio.
+ *
+ * The asymmetric thresholds (grow fast, shrink slowly) plus the cooldown are the hysteresis that
+ * keeps a bursty load from flapping the pool size. Hikari retires surplus idle connections on its
+ * own housekeeping schedule, so a shrink shows up in totalConnections with some delay.
+ */
+@Component
+@Slf4j
+public class HikariPoolAutoSizer {
+
+    private final HikariPools hikariPools;
+    private final DatabaseAdmissionLimiter admissionLimiter;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private final int stepUp;
+    private final int stepDown;
+    private final int growAfter;
+    private final int shrinkAfter;
+    private final long cooldownMs;
+    private final double acquireThresholdMs;
+    private final double shrinkUtilization;
+    private final int historySize;
+
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "hikari-autosizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, PoolState> pools = new LinkedHashMap<>();
+    private final Deque<Decision> history = new ArrayDeque<>();
+    private long samples;
+
+    public HikariPoolAutoSizer(HikariPools hikariPools,
+                               DatabaseAdmissionLimiter admissionLimiter,
+                               ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${hikari.autosize.enabled:false}") boolean enabled,
+                               @Value("${hikari.autosize.interval-ms:1000}") long intervalMs,
+                               @Value("${hikari.autosize.min-pool-size:5}") int minPoolSize,
+                               @Value("${hikari.autosize.max-pool-size:40}") int maxPoolSize,
+                               @Value("${hikari.autosize.step-up:2}") int stepUp,
+                               @Value("${hikari.autosize.step-down:1}") int stepDown,
+                               @Value("${hikari.autosize.grow-after:2}") int growAfter,
+                               @Value("${hikari.autosize.shrink-after:10}") int shrinkAfter,
+                               @Value("${hikari.autosize.cooldown-ms:5000}") long cooldownMs,
+                               @Value("${hikari.autosize.acquire-threshold-ms:20}") double acquireThresholdMs,
+                               @Value("${hikari.autosize.shrink-utilization:0.5}") double shrinkUtilization,
+                               @Value("${hikari.autosize.history-size:100}") int historySize) {
+        this.hikariPools = hikariPools;
+        this.admissionLimiter = admissionLimiter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.intervalMs = intervalMs;
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.stepUp = stepUp;
+        this.stepDown = stepDown;
+        this.growAfter = growAfter;
+        this.shrinkAfter = shrinkAfter;
+        this.cooldownMs = cooldownMs;
+        this.acquireThresholdMs = acquireThresholdMs;
+        this.shrinkUtilization = shrinkUtilization;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Starts sampling once the pools are up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Hikari pool auto-sizing disabled");
+            return;
+        }
+        if (hikariPools.getAll().isEmpty()) {
+            log.warn("Hikari pool auto-sizing disabled: no Hikari pool found");
+            return;
+        }
+        sampler.scheduleWithFixedDelay(this::sampleSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Hikari pool auto-sizing enabled for {}: pool size {}..{}, every {}ms, grow +{} after {} pressured samples, "
+                        + "shrink -{} after {} quiet samples, cooldown {}ms",
+                hikariPools.getAll().stream().map(HikariDataSource::getPoolName).toList(), minPoolSize, maxPoolSize, intervalMs, stepUp, growAfter, stepDown, shrinkAfter, cooldownMs);
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            log.error("Hikari pool auto-sizing sample failed: {}", e.getMessage());
+        }
+    }
+
+    synchronized void sample() {
+        samples++;
+        for (HikariDataSource hikari : hikariPools.getAll()) {
+            pools.computeIfAbsent(hikari.getPoolName(), name -> new PoolState(hikari)).sample();
+        }
+    }
+
+    /**
+     * Auto-sizer configuration, last sample per pool and decision history (oldest first)
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> bounds = new HashMap<>();
+        bounds.put("minPoolSize", minPoolSize);
+        bounds.put("maxPoolSize", maxPoolSize);
+        bounds.put("stepUp", stepUp);
+        bounds.put("stepDown", stepDown);
+        bounds.put("growAfterSamples", growAfter);
+        bounds.put("shrinkAfterSamples", shrinkAfter);
+        bounds.put("cooldownMs", cooldownMs);
+        bounds.put("acquireThresholdMs", acquireThresholdMs);
+        bounds.put("shrinkUtilization", shrinkUtilization);
+
+        List<Map<String, Object>> decisions = new ArrayList<>();
+        for (Decision decision : history) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("timestamp", decision.timestamp);
+            entry.put("pool", decision.pool);
+            entry.put("action", decision.action);
+            entry.put("maximumPoolSize", decision.fromMaximumPoolSize + " -> " + decision.toMaximumPoolSize);
+            entry.put("minimumIdle", decision.fromMinimumIdle + " -> " + decision.toMinimumIdle);
+            entry.put("reason", decision.reason);
+            decisions.add(entry);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("intervalMs", intervalMs);
+        stats.put("configuration", bounds);
+        stats.put("samples", samples);
+        List<Map<String, Object>> poolStats = new ArrayList<>();
+        for (PoolState state : pools.values()) {
+            poolStats.add(state.getStats());
+        }
+        stats.put("pools", poolStats);
+        stats.put("decisions", decisions);
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * Samples and resizes one pool; guarded by the auto-sizer's lock
+     */
+    private final class PoolState {
+
+        private final HikariDataSource hikari;
+        private final double minIdleRatio;
+        private Sample lastSample;
+        private long lastAcquireCount;
+        private double lastAcquireTotalMs;
+        private long lastGateCount;
+        private long lastGateTotalMicros;
+        private int pressuredSamples;
+        private int quietSamples;
+        private long lastDecisionAt;
+
+        private PoolState(HikariDataSource hikari) {
+            this.hikari = hikari;
+            this.minIdleRatio = hikari.getMaximumPoolSize() > 0
+                    ? (double) hikari.getMinimumIdle() / hikari.getMaximumPoolSize() : 0.5;
+        }
+
+        private void sample() {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                return;
+            }
+            HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+            int max = config.getMaximumPoolSize();
+            DatabaseAdmissionLimiter.Gate gate = admissionLimiter.find(hikari.getPoolName());
+            Sample sample = new Sample(System.currentTimeMillis(), pool.getActiveConnections(), pool.getIdleConnections(),
+                    pool.getThreadsAwaitingConnection(), meanAcquireMs(), gate != null ? gate.getQueueDepth() : 0,
+                    meanGateWaitMs(gate), max, config.getMinimumIdle());
+            lastSample = sample;
+
+            boolean pressured = sample.waiting > 0 || sample.acquireMeanMs > acquireThresholdMs
+                    || sample.gateQueued > 0 || sample.gateWaitMs > acquireThresholdMs;
+            boolean quiet = sample.waiting == 0 && sample.gateQueued == 0
+                    && sample.acquireMeanMs <= acquireThresholdMs / 2
+                    && sample.gateWaitMs <= acquireThresholdMs / 2
+                    && sample.active <= max * shrinkUtilization;
+            pressuredSamples = pressured ? pressuredSamples + 1 : 0;
+            quietSamples = quiet ? quietSamples + 1 : 0;
+
+            if (sample.timestamp - lastDecisionAt < cooldownMs) {
+                return;
+            }
+            if (pressuredSamples >= growAfter && max < maxPoolSize) {
+                resize(Math.min(maxPoolSize, max + stepUp), "grow", String.format(
+                        "%d samples under pressure (waiting %d, acquire %.1fms, gate queue %d, gate wait %.1fms, active %d/%d)",
+                        pressuredSamples, sample.waiting, sample.acquireMeanMs, sample.gateQueued, sample.gateWaitMs,
+                        sample.active, max), sample);
+            } else if (quietSamples >= shrinkAfter && max > minPoolSize) {
+                resize(Math.max(minPoolSize, max - stepDown), "shrink", String.format(
+                        "%d quiet samples (waiting 0, acquire %.1fms, gate wait %.1fms, active %d/%d)",
+                        quietSamples, sample.acquireMeanMs, sample.gateWaitMs, sample.active, max), sample);
+            }
+        }
+
+        private void resize(int newMax, String action, String reason, Sample sample) {
+            HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+            int newMinIdle = Math.max(1, Math.min(newMax, (int) Math.round(newMax * minIdleRatio)));
+            // Raise the maximum before the minimum (and lower it after) so minimumIdle never exceeds it
+            if (newMax > sample.maximumPoolSize) {
+                config.setMaximumPoolSize(newMax);
+                config.setMinimumIdle(newMinIdle);
+            } else {
+                config.setMinimumIdle(newMinIdle);
+                config.setMaximumPoolSize(newMax);
+            }
+
+            Decision decision = new Decision(sample.timestamp, hikari.getPoolName(), action, sample.maximumPoolSize,
+                    newMax, sample.minimumIdle, newMinIdle, reason);
+            history.addLast(decision);
+            while (history.size() > historySize) {
+                history.removeFirst();
+            }
+            lastDecisionAt = sample.timestamp;
+            pressuredSamples = 0;
+            quietSamples = 0;
+            log.info("Hikari pool auto-sizing: {} {} maximumPoolSize {} -> {}, minimumIdle {} -> {}: {}",
+                    action, decision.pool, decision.fromMaximumPoolSize, newMax, decision.fromMinimumIdle, newMinIdle,
+                    reason);
+        }
+
+        /**
+         * Mean connection acquisition time since the previous sample, -1 when the Hikari timer is not registered
+         */
+        private double meanAcquireMs() {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            Timer timer = registry == null ? null
+                    : registry.find("hikaricp.connections.acquire").tag("pool", hikari.getPoolName()).timer();
+            if (timer == null) {
+                return -1;
+            }
+            long count = timer.count();
+            double totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+            long deltaCount = count - lastAcquireCount;
+            double deltaMs = totalMs - lastAcquireTotalMs;
+            lastAcquireCount = count;
+            lastAcquireTotalMs = totalMs;
+            return deltaCount > 0 ? Math.round(deltaMs * 100.0 / deltaCount) / 100.0 : 0.0;
+        }
+
+        /**
+         * Mean time from arrival at the admission gate to a permit since the previous sample, 0 without a gate
+         */
+        private double meanGateWaitMs(DatabaseAdmissionLimiter.Gate gate) {
+            if (gate == null) {
+                return 0.0;
+            }
+            long count = gate.getQueueTime().getCount();
+            long totalMicros = gate.getQueueTime().getTotalMicros();
+            if (count < lastGateCount) {
+                // The admission statistics were reset (after the warm-up); start over from there
+                lastGateCount = 0;
+                lastGateTotalMicros = 0;
+            }
+            long deltaCount = count - lastGateCount;
+            long deltaMicros = totalMicros - lastGateTotalMicros;
+            lastGateCount = count;
+            lastGateTotalMicros = totalMicros;
+            return deltaCount > 0 ? Math.round(deltaMicros / 10.0 / deltaCount) / 100.0 : 0.0;
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("poolName", hikari.getPoolName());
+            stats.put("pressuredSamples", pressuredSamples);
+            stats.put("quietSamples", quietSamples);
+            if (lastSample != null) {
+                Map<String, Object> sample = new HashMap<>();
+                sample.put("active", lastSample.active);
+                sample.put("idle", lastSample.idle);
+                sample.put("waiting", lastSample.waiting);
+                sample.put("acquireMeanMs", lastSample.acquireMeanMs);
+                sample.put("gateQueued", lastSample.gateQueued);
+                sample.put("gateWaitMs", lastSample.gateWaitMs);
+                sample.put("maximumPoolSize", lastSample.maximumPoolSize);
+                sample.put("minimumIdle", lastSample.minimumIdle);
+                sample.put("timestamp", lastSample.timestamp);
+                stats.put("lastSample", sample);
+            }
+            return stats;
+        }
+    }
+
+    private record Sample(long timestamp, int active, int idle, int waiting, double acquireMeanMs,
+                          int gateQueued, double gateWaitMs, int maximumPoolSize, int minimumIdle) {
+    }
+
+    private record Decision(long timestamp, String pool, String action, int fromMaximumPoolSize, int toMaximumPoolSize,
+                            int fromMinimumIdle, int toMinimumIdle, String reason) {
+    }
+}
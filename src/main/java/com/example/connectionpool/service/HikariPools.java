@@ -0,0 +1,83 @@
+package com.example.connectionpool.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The Hikari pools behind the application's DataSources.
+ *
+ * With read/write routing there are two pools (write first, then read); otherwise the single pool
+ * Spring Boot creates. DataSources are unwrapped, so the hold-time tracker and the routing proxy
+ * are seen through. Pools that are not behind a DataSource bean (the product shards) are registered
+ * explicitly and listed after them.
+ */
+@Component
+public class HikariPools {
+
+    private final DataSource dataSource;
+    private final ObjectProvider<DataSource> dataSources;
+    private volatile List<HikariDataSource> pools;
+    private final List<HikariDataSource> registered = new CopyOnWriteArrayList<>();
+
+    public HikariPools(DataSource dataSource, ObjectProvider<DataSource> dataSources) {
+        this.dataSource = dataSource;
+        this.dataSources = dataSources;
+    }
+
+    /**
+     * The pool of the primary DataSource (the write pool when routing), or null if it is not Hikari
+     */
+    public HikariDataSource getPrimary() {
+        return unwrap(dataSource);
+    }
+
+    /**
+     * Adds a pool created outside the DataSource beans, so it is monitored and warmed up with the others
+     */
+    public void register(HikariDataSource pool) {
+        registered.add(pool);
+    }
+
+    /**
+     * Every Hikari pool, primary first
+     */
+    public List<HikariDataSource> getAll() {
+        List<HikariDataSource> all = pools;
+        if (all == null) {
+            Map<String, HikariDataSource> byName = new LinkedHashMap<>();
+            HikariDataSource primary = getPrimary();
+            if (primary != null) {
+                byName.put(primary.getPoolName(), primary);
+            }
+            dataSources.orderedStream()
+                    .map(HikariPools::unwrap)
+                    .filter(pool -> pool != null)
+                    .forEach(pool -> byName.putIfAbsent(pool.getPoolName(), pool));
+            all = List.copyOf(byName.values());
+            pools = all;
+        }
+        if (registered.isEmpty()) {
+            return all;
+        }
+        List<HikariDataSource> withRegistered = new ArrayList<>(all);
+        withRegistered.addAll(registered);
+        return withRegistered;
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
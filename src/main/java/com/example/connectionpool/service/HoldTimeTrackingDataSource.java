@@ -0,0 +1,59 @@
+package com.example.connectionpool.service;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource proxy that times every connection borrowed from the wrapped pool.
+ *
+ * getConnection() measures how long the pool took to hand out a connection and returns it wrapped
+ * in a proxy whose first close() reports the hold time to {@link ConnectionHoldTimeTracker}.
+ * Everything else is passed straight through, and unwrap(HikariDataSource.class) still reaches the pool.
+ */
+public class HoldTimeTrackingDataSource extends DelegatingDataSource {
+
+    private final String poolName;
+    private final ConnectionHoldTimeTracker tracker;
+
+    public HoldTimeTrackingDataSource(DataSource targetDataSource, String poolName, ConnectionHoldTimeTracker tracker) {
+        super(targetDataSource);
+        this.poolName = poolName;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!tracker.isEnabled()) {
+            return super.getConnection();
+        }
+        long start = System.nanoTime();
+        try {
+            return track(super.getConnection(), start);
+        } catch (SQLException e) {
+            tracker.acquireFailed(poolName, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!tracker.isEnabled()) {
+            return super.getConnection(username, password);
+        }
+        long start = System.nanoTime();
+        try {
+            return track(super.getConnection(username, password), start);
+        } catch (SQLException e) {
+            tracker.acquireFailed(poolName, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private Connection track(Connection target, long start) {
+        ConnectionHoldTimeTracker.Lease lease = tracker.borrowed(poolName, System.nanoTime() - start);
+        return ConnectionCloseHook.wrap(target, lease::released);
+    }
+}
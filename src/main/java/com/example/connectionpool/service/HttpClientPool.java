@@ -0,0 +1,181 @@
+package com.example.connectionpool.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pooled keep-alive HTTP client behind the RestTemplate.
+ *
+ * Connections to postman-echo and the other external APIs are kept open and reused instead of a new
+ * TCP connection and TLS handshake per call. The pool is bounded in total (max-total) and per host
+ * (max-per-route, with overrides in route-limits as host:connections). A caller waits at most
+ * connection-request-timeout-ms for a pooled connection, connect-timeout-ms to open one and
+ * response-timeout-ms for the response; each failure surfaces as the RestTemplate's
+ * ResourceAccessException.
+ * Idle connections are kept for keep-alive-ms (unless the server says otherwise), evicted after
+ * idle-evict-ms and re-validated when they were idle for more than validate-after-inactivity-ms.
+ */
+@Component
+@Slf4j
+public class HttpClientPool implements DisposableBean {
+
+    public static final String POOL_NAME = "rest-template";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final Map<String, Integer> routeLimits = new LinkedHashMap<>();
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final long connectionRequestTimeoutMs;
+    private final long connectTimeoutMs;
+    private final long responseTimeoutMs;
+    private final long keepAliveMs;
+
+    public HttpClientPool(ObjectProvider<MeterRegistry> meterRegistry,
+                          @Value("${http.client.max-total:200}") int maxTotal,
+                          @Value("${http.client.max-per-route:20}") int maxPerRoute,
+                          @Value("${http.client.route-limits:}") String routeLimits,
+                          @Value("${http.client.connection-request-timeout-ms:2000}") long connectionRequestTimeoutMs,
+                          @Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+                          @Value("${http.client.response-timeout-ms:15000}") long responseTimeoutMs,
+                          @Value("${http.client.keep-alive-ms:30000}") long keepAliveMs,
+                          @Value("${http.client.idle-evict-ms:30000}") long idleEvictMs,
+                          @Value("${http.client.validate-after-inactivity-ms:2000}") long validateAfterInactivityMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.connectionRequestTimeoutMs = connectionRequestTimeoutMs;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.responseTimeoutMs = responseTimeoutMs;
+        this.keepAliveMs = keepAliveMs;
+
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .build())
+                .build();
+        for (String entry : routeLimits.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0 || entry.substring(0, separator).isBlank()) {
+                throw new IllegalArgumentException("http.client.route-limits entry must be host:connections, got " + entry);
+            }
+            String host = entry.substring(0, separator).trim();
+            int limit;
+            try {
+                limit = Integer.parseInt(entry.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("http.client.route-limits entry must be host:connections, got " + entry, e);
+            }
+            if (limit < 1) {
+                throw new IllegalArgumentException("http.client.route-limits connections must be at least 1, got " + entry);
+            }
+            // The route planner resolves default ports, so both schemes are set explicitly
+            connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost("https", host, 443), null, true), limit);
+            connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost("http", host, 80), null, false), limit);
+            this.routeLimits.put(host, limit);
+        }
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAliveMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+                .build();
+        log.info("HTTP client pool: {} connections total, {} per route (overrides {}), timeouts request {}ms / connect {}ms / response {}ms",
+                maxTotal, maxPerRoute, this.routeLimits, connectionRequestTimeoutMs, connectTimeoutMs, responseTimeoutMs);
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Publishes leased, available, pending and max connections as httpcomponents.httpclient.pool.* meters
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerMeters() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(registry);
+        }
+    }
+
+    /**
+     * Pool totals and per-route leased / available / pending connections for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> routes = new ArrayList<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            Map<String, Object> routeStats = toMap(connectionManager.getStats(route));
+            routeStats.put("route", route.getTargetHost().toURI());
+            routes.add(routeStats);
+        }
+        Map<String, Object> timeouts = new LinkedHashMap<>();
+        timeouts.put("connectionRequestMs", connectionRequestTimeoutMs);
+        timeouts.put("connectMs", connectTimeoutMs);
+        timeouts.put("responseMs", responseTimeoutMs);
+        timeouts.put("keepAliveMs", keepAliveMs);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("poolName", POOL_NAME);
+        stats.put("maxTotal", maxTotal);
+        stats.put("maxPerRoute", maxPerRoute);
+        stats.put("routeLimits", routeLimits);
+        stats.put("timeouts", timeouts);
+        stats.put("total", toMap(connectionManager.getTotalStats()));
+        stats.put("routes", routes);
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    private static Map<String, Object> toMap(PoolStats poolStats) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("leased", poolStats.getLeased());
+        map.put("available", poolStats.getAvailable());
+        map.put("pending", poolStats.getPending());
+        map.put("max", poolStats.getMax());
+        return map;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
+    }
+}
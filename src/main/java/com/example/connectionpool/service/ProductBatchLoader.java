@@ -0,0 +1,149 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.dto.ProductView;
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataLoader-style coalescing of single-id product lookups.
+ *
+ * Lookups arriving from different request threads are collected for a short window (or until
+ * the batch is full) and answered by one WHERE id IN (...) query. Thousands of concurrent
+ * single-id lookups then share a handful of connections instead of each queueing on Hikari.
+ * Concurrent lookups of the same id in one window share a single future.
+ * A lookup that arrives while no other lookup is outstanding is queried at once: without
+ * concurrent callers there is nothing to batch with, and the window would only add latency.
+ *
+ * Callers are batched per connection bulkhead (see {@link ConnectionBulkheads}), and each batch
+ * borrows under the bulkhead of the callers it answers, so a flooded endpoint fills its own
+ * quota and not the one of every other endpoint that looks products up.
+ */
+@Component
+@Slf4j
+public class ProductBatchLoader {
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+
+    private final WindowedBatcher<String, Long, CompletableFuture<Optional<ProductView>>> batcher;
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final LongAdder loadsRequested = new LongAdder();
+    private final LongAdder immediateLoads = new LongAdder();
+    private final LongAdder batchFailures = new LongAdder();
+
+    public ProductBatchLoader(ProductJdbcRepository productJdbcRepository,
+                              @Value("${product.batch-loader.enabled:true}") boolean enabled,
+                              @Value("${product.batch-loader.window-micros:2000}") long windowMicros,
+                              @Value("${product.batch-loader.max-batch-size:100}") int maxBatchSize) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.batcher = new WindowedBatcher<>("product-batch", windowMicros, maxBatchSize, this::dispatch);
+        log.info("Product batch loader {} (window: {}us, max batch size: {})",
+                enabled ? "enabled" : "disabled", windowMicros, maxBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a lookup; the future completes when the batch containing this id has been queried
+     */
+    public CompletableFuture<Optional<ProductView>> load(Long id) {
+        loadsRequested.increment();
+        String bulkhead = ConnectionBulkheads.current();
+        CompletableFuture<Optional<ProductView>> future;
+        if (outstanding.getAndIncrement() == 0) {
+            immediateLoads.increment();
+            future = new CompletableFuture<>();
+            dispatch(bulkhead, Map.of(id, future));
+        } else {
+            future = batcher.add(bulkhead, id, CompletableFuture::new);
+        }
+        future.whenComplete((row, error) -> outstanding.decrementAndGet());
+        return future;
+    }
+
+    /**
+     * Blocking convenience for synchronous callers; unwraps the CompletionException
+     */
+    public Optional<ProductView> loadNow(Long id) {
+        try {
+            return load(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void dispatch(String bulkhead, Map<Long, CompletableFuture<Optional<ProductView>>> batch) {
+        // Borrowed on a dispatcher thread, but charged to the bulkhead of the callers in the batch
+        dispatcher.execute(ConnectionBulkheads.bind(bulkhead, () -> {
+            try {
+                List<ProductView> rows = productJdbcRepository.findViewsByIds(batch.keySet());
+                Map<Long, ProductView> byId = new HashMap<>();
+                for (ProductView row : rows) {
+                    byId.put(row.id(), row);
+                }
+                log.debug("Batch of {} ids answered with one query ({} found)", batch.size(), rows.size());
+                batch.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+            } catch (RuntimeException e) {
+                batchFailures.increment();
+                log.error("Batch product lookup failed for {} ids: {}", batch.size(), e.getMessage());
+                batch.values().forEach(future -> future.completeExceptionally(e));
+            }
+        }));
+    }
+
+    /**
+     * Loader statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        long batches = batcher.getBatchesDispatched();
+        long ids = batcher.getItemsDispatched();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMicros", windowMicros);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("loadsRequested", loadsRequested.sum());
+        stats.put("immediateLoads", immediateLoads.sum());
+        stats.put("duplicatesCoalesced", batcher.getDuplicates());
+        stats.put("batchesDispatched", batches);
+        stats.put("batchesDispatchedFull", batcher.getBatchesFull());
+        stats.put("batchFailures", batchFailures.sum());
+        stats.put("averageBatchSize", batches > 0 ? Math.round(ids * 10.0 / batches) / 10.0 : 0.0);
+        stats.put("largestBatch", batcher.getLargestBatch());
+        stats.put("queriesSaved", loadsRequested.sum() - immediateLoads.sum() - batches);
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
+        dispatcher.shutdown();
+    }
+}
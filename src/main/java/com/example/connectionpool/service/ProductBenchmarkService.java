@@ -0,0 +1,212 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.dto.ProductView;
+import com.example.connectionpool.entity.Product;
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import com.example.connectionpool.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * In-process micro benchmarks for product read paths.
+ * Measures wall-clock latency and bytes allocated by the calling thread, so before/after
+ * comparisons can be made on the running application without an external profiler.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBenchmarkService {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final ProductRepository productRepository;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductService productService;
+    private final ProductCache productCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Compares entity hydration (findById / findAll + field-by-field mapping, the old read path)
+     * against ProductView projections (the current read path).
+     */
+    public Map<String, Object> compareEntityVsProjection(int iterations, int findAllIterations) {
+        return onPlatformThread(() -> doCompareEntityVsProjection(iterations, findAllIterations));
+    }
+
+    private Map<String, Object> doCompareEntityVsProjection(int iterations, int findAllIterations) {
+        log.info("Running entity vs projection benchmark: {} single reads, {} full scans",
+                iterations, findAllIterations);
+
+        long maxId = productRepository.count();
+        SplittableRandom random = new SplittableRandom(42);
+        long[] ids = random.longs(iterations, 1, Math.max(2, maxId + 1)).toArray();
+
+        LongFunction<Object> entityById = id -> productRepository.findById(id)
+                .map(p -> ProductService.mapToResponse(p, null))
+                .orElse(null);
+        LongFunction<Object> projectionById = id -> productRepository.findViewById(id)
+                .map(v -> ProductService.mapToResponse(v, null))
+                .orElse(null);
+        LongFunction<Object> jdbcById = id -> productJdbcRepository.findViewById(id)
+                .map(v -> ProductService.mapToResponse(v, null))
+                .orElse(null);
+        LongFunction<Object> entityFindAll = ignored -> {
+            List<Product> products = productRepository.findAll();
+            return products.stream().map(p -> ProductService.mapToResponse(p, null)).toList();
+        };
+        LongFunction<Object> projectionFindAll = ignored -> {
+            List<ProductView> products = productRepository.findAllViews();
+            return products.stream().map(v -> ProductService.mapToResponse(v, null)).toList();
+        };
+
+        Map<String, Object> singleRead = new LinkedHashMap<>();
+        Map<String, Object> entitySingle = run(ids, entityById);
+        Map<String, Object> projectionSingle = run(ids, projectionById);
+        Map<String, Object> jdbcSingle = run(ids, jdbcById);
+        singleRead.put("entity", entitySingle);
+        singleRead.put("jpqlProjection", projectionSingle);
+        singleRead.put("jdbcProjection", jdbcSingle);
+        singleRead.put("comparison", compare(entitySingle, jdbcSingle));
+
+        long[] scans = new long[findAllIterations];
+        Map<String, Object> fullScan = new LinkedHashMap<>();
+        Map<String, Object> entityScan = run(scans, entityFindAll);
+        Map<String, Object> projectionScan = run(scans, projectionFindAll);
+        fullScan.put("entity", entityScan);
+        fullScan.put("projection", projectionScan);
+        fullScan.put("comparison", compare(entityScan, projectionScan));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rows", maxId);
+        result.put("getProductById", singleRead);
+        result.put("getAllProducts", fullScan);
+        result.put("timestamp", System.currentTimeMillis());
+        return result;
+    }
+
+    /**
+     * Compares serializing a cached ProductResponse with Jackson on every read (the old path)
+     * against reusing the cached JSON bytes (the current path), over a small hot set of ids.
+     */
+    public Map<String, Object> compareJsonSerialization(int iterations, int hotIds) {
+        return onPlatformThread(() -> doCompareJsonSerialization(iterations, hotIds));
+    }
+
+    private Map<String, Object> doCompareJsonSerialization(int iterations, int hotIds) {
+        log.info("Running JSON serialization benchmark: {} reads over {} hot ids", iterations, hotIds);
+
+        SplittableRandom random = new SplittableRandom(42);
+        long[] ids = random.longs(iterations, 1, hotIds + 1L).toArray();
+        for (long id = 1; id <= hotIds; id++) {
+            productService.getProductJsonById(id);
+        }
+
+        LongFunction<Object> serializeEachRead = id -> {
+            try {
+                return objectMapper.writeValueAsBytes(productService.getProductById(id));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        LongFunction<Object> cachedBytes = productService::getProductJsonById;
+
+        Map<String, Object> serialize = run(ids, serializeEachRead);
+        Map<String, Object> cached = run(ids, cachedBytes);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hotIds", hotIds);
+        result.put("jsonBytesCached", productCache.isJsonBytesEnabled());
+        result.put("serializeEachRead", serialize);
+        result.put("cachedJsonBytes", cached);
+        result.put("comparison", compare(serialize, cached));
+        result.put("timestamp", System.currentTimeMillis());
+        return result;
+    }
+
+    /**
+     * Runs the operation once per argument after a warm-up pass of the same size,
+     * returning average latency and average allocated bytes per operation.
+     */
+    Map<String, Object> run(long[] args, LongFunction<Object> operation) {
+        // Warm-up so JIT compilation and query plan caching do not skew the first variant
+        for (long arg : args) {
+            consume(operation.apply(arg));
+        }
+
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (long arg : args) {
+            consume(operation.apply(arg));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        int ops = Math.max(1, args.length);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("operations", args.length);
+        stats.put("avgLatencyMicros", Math.round(elapsedNanos / 1000.0 / ops * 10) / 10.0);
+        stats.put("opsPerSecond", elapsedNanos > 0 ? Math.round(args.length * 1_000_000_000.0 / elapsedNanos) : 0);
+        stats.put("allocatedBytesPerOp", allocated / ops);
+        return stats;
+    }
+
+    /**
+     * Per-thread allocation counters are not available on virtual threads (request threads
+     * in this application), so benchmarks run on a dedicated platform thread.
+     */
+    <T> T onPlatformThread(Supplier<T> benchmark) {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread thread = Thread.ofPlatform().name("benchmark").start(() -> {
+            try {
+                result.set(benchmark.get());
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for benchmark", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    private Map<String, Object> compare(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("latencyChangePercent",
+                percentChange((Double) before.get("avgLatencyMicros"), (Double) after.get("avgLatencyMicros")));
+        comparison.put("allocationChangePercent",
+                percentChange(((Long) before.get("allocatedBytesPerOp")).doubleValue(),
+                        ((Long) after.get("allocatedBytesPerOp")).doubleValue()));
+        return comparison;
+    }
+
+    private static double percentChange(double before, double after) {
+        return before > 0 ? Math.round((after - before) * 1000.0 / before) / 10.0 : 0.0;
+    }
+
+    private static volatile Object sink;
+
+    private static void consume(Object value) {
+        sink = value;
+    }
+}
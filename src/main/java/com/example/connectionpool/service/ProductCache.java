@@ -0,0 +1,316 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.dto.ProductResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent read-through cache of products keyed by id.
+ *
+ * The cache is split into segments, each one a small access-ordered LRU map guarded by its own lock,
+ * so readers of different ids rarely contend. A cache hit never touches the database, which means
+ * hot reads do not borrow a Hikari connection at all.
+ *
+ * Writers call {@link #invalidate(Long)}. Every invalidation bumps a generation stamp for the id, and
+ * a loader only stores its result if the stamp is unchanged since it started reading. This stops a
+ * slow reader from putting a pre-update row back into the cache after the writer has committed.
+ *
+ * Each entry can also hold the product's JSON encoding (UTF-8 bytes), produced on the first
+ * {@link #getJson(Long)} for that version of the row. Repeat reads of a hot product then write
+ * those bytes to the response as-is instead of running Jackson again. The bytes live and die with
+ * the entry, so an update's invalidation drops them too.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int STAMP_STRIPES = 4096;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder stalePutsRejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder jsonHits = new LongAdder();
+    private final LongAdder jsonEncodes = new LongAdder();
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxSize;
+    private final boolean jsonBytesEnabled;
+
+    public ProductCache(ObjectMapper objectMapper,
+                        @Value("${product.cache.enabled:true}") boolean enabled,
+                        @Value("${product.cache.max-size:10000}") int maxSize,
+                        @Value("${product.cache.json-bytes.enabled:true}") boolean jsonBytesEnabled) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.jsonBytesEnabled = jsonBytesEnabled;
+        int segmentCapacity = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        log.info("Product cache {} (max size: {}, JSON bytes: {})",
+                enabled ? "enabled" : "disabled", maxSize, jsonBytesEnabled);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isJsonBytesEnabled() {
+        return enabled && jsonBytesEnabled;
+    }
+
+    /**
+     * Returns a copy of the cached product, or null on a miss
+     */
+    public ProductResponse get(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        Entry cached = segmentFor(id).get(id);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.response.toBuilder().build();
+    }
+
+    /**
+     * Returns the cached product's JSON encoding, or null on a miss. Counts as one lookup, like get().
+     * With byte caching off the cached product is encoded on every call; otherwise the array is
+     * shared between callers and must not be modified.
+     */
+    public byte[] getJson(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        Entry cached = segmentFor(id).get(id);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (!jsonBytesEnabled) {
+            return encode(cached.response);
+        }
+        byte[] json = cached.json;
+        if (json == null) {
+            // Racing readers may both encode; the results are identical, so either one can win
+            json = encode(cached.response);
+            cached.json = json;
+            jsonEncodes.increment();
+        } else {
+            jsonHits.increment();
+        }
+        return json;
+    }
+
+    /**
+     * Version of the cached row, or null on a miss
+     */
+    public Long getVersion(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        Entry cached = segmentFor(id).get(id);
+        return cached != null ? cached.version : null;
+    }
+
+    public byte[] encode(ProductResponse product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.getId(), e);
+        }
+    }
+
+    /**
+     * Stamp to take before reading from the database; pass it back to {@link #put(Long, ProductResponse, long)}
+     */
+    public long stamp(Long id) {
+        return stamps.get(stripe(id));
+    }
+
+    /**
+     * Stores a loaded product (and the row version it was read at) unless the id was
+     * invalidated after the stamp was taken
+     */
+    public void put(Long id, ProductResponse product, long version, long stamp) {
+        if (!enabled || product == null) {
+            return;
+        }
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            // Checked under the segment lock so an invalidation cannot slip in between check and put
+            if (stamps.get(stripe(id)) != stamp) {
+                stalePutsRejected.increment();
+                return;
+            }
+            segment.entries.put(id, new Entry(product.toBuilder().message(null).build(), version));
+        }
+        puts.increment();
+    }
+
+    /**
+     * Evicts the product now and again once the surrounding transaction (if any) completes,
+     * so concurrent readers cannot re-cache the row as it was before the commit.
+     */
+    public void invalidate(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        invalidations.increment();
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        log.info("Product cache cleared");
+    }
+
+    /**
+     * Clears the hit, miss, put, eviction and invalidation counts; cached entries are kept
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        puts.reset();
+        stalePutsRejected.reset();
+        evictions.reset();
+        invalidations.reset();
+        jsonHits.reset();
+        jsonEncodes.reset();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Cache statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", lookups > 0 ? Math.round(hitCount * 1000.0 / lookups) / 10.0 : 0.0);
+        stats.put("puts", puts.sum());
+        stats.put("stalePutsRejected", stalePutsRejected.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("jsonBytesEnabled", jsonBytesEnabled);
+        stats.put("jsonHits", jsonHits.sum());
+        stats.put("jsonEncodes", jsonEncodes.sum());
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    private void evict(Long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            stamps.incrementAndGet(stripe(id));
+            segment.entries.remove(id);
+        }
+    }
+
+    private Segment segmentFor(Long id) {
+        return segments[(int) (mix(id) & (SEGMENTS - 1))];
+    }
+
+    private static int stripe(Long id) {
+        return (int) (mix(id) >>> 8) & (STAMP_STRIPES - 1);
+    }
+
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Cached row; json is filled in lazily on the first JSON read
+     */
+    private static final class Entry {
+
+        private final ProductResponse response;
+        private final long version;
+        private volatile byte[] json;
+
+        private Entry(ProductResponse response, long version) {
+            this.response = response;
+            this.version = version;
+        }
+    }
+
+    /**
+     * One LRU segment; all access goes through the segment monitor
+     */
+    private final class Segment {
+
+        private final LinkedHashMap<Long, Entry> entries;
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private synchronized Entry get(Long id) {
+            return entries.get(id);
+        }
+    }
+}
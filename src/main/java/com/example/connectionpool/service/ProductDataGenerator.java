@@ -0,0 +1,411 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.repository.ShardedProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Synthetic product generator for scale tests (1M-10M rows).
+ *
+ * Uses the same category / name / feature vocabulary as generate-sample-data.py, but streams the
+ * rows straight into the products table with batched multi-row prepared INSERTs instead of SQL text.
+ * A full (non-append) run drops the secondary indexes and rebuilds them once the rows are in.
+ *
+ * Generation is deterministic: row n (0-based) of a run always gets the same name, description,
+ * price and stock for the same seed, and ids are assigned explicitly (first id + n), so two runs
+ * with the same seed and count produce the same table.
+ *
+ * Afterwards the identity column is moved past the generated ids, the id index is reloaded, the
+ * product cache is cleared and, with sharding enabled, the shards are reloaded from the table. The
+ * table generation is bumped even when the run fails, since the table may already be truncated.
+ */
+@Component
+@Slf4j
+public class ProductDataGenerator {
+
+    private static final String INSERT_GENERATED =
+            "INSERT INTO products (id, name, description, price, stock_quantity, last_updated, created_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final int ROWS_PER_STATEMENT = 100;
+
+    /**
+     * Secondary indexes of schema.sql, rebuilt after a full (non-append) generation
+     */
+    private static final Map<String, String> SECONDARY_INDEXES = Map.of(
+            "idx_products_stock_quantity", "stock_quantity",
+            "idx_products_price", "price",
+            "idx_products_name", "name");
+
+    private static final List<ProductType> PRODUCT_TYPES = List.of(
+            // Electronics
+            new ProductType("Laptop", "High-performance laptop with", 799.99, 1999.99),
+            new ProductType("Smartphone", "Latest smartphone with", 599.99, 1499.99),
+            new ProductType("Tablet", "Portable tablet with", 399.99, 1199.99),
+            new ProductType("Headphones", "Premium headphones with", 99.99, 499.99),
+            new ProductType("Smart Watch", "Feature-rich smartwatch with", 199.99, 799.99),
+            new ProductType("Monitor", "High-resolution monitor with", 299.99, 1299.99),
+            new ProductType("Keyboard", "Mechanical keyboard with", 79.99, 299.99),
+            new ProductType("Mouse", "Ergonomic mouse with", 29.99, 149.99),
+            new ProductType("Webcam", "HD webcam with", 59.99, 249.99),
+            new ProductType("Speaker", "Bluetooth speaker with", 49.99, 399.99),
+            // Home & Kitchen
+            new ProductType("Coffee Maker", "Programmable coffee maker with", 49.99, 299.99),
+            new ProductType("Blender", "High-speed blender with", 59.99, 399.99),
+            new ProductType("Air Fryer", "Digital air fryer with", 79.99, 249.99),
+            new ProductType("Vacuum Cleaner", "Robot vacuum with", 199.99, 799.99),
+            new ProductType("Microwave", "Smart microwave with", 99.99, 399.99),
+            new ProductType("Toaster", "Stainless steel toaster with", 29.99, 149.99),
+            new ProductType("Mixer", "Stand mixer with", 149.99, 599.99),
+            new ProductType("Pressure Cooker", "Multi-function cooker with", 79.99, 299.99),
+            new ProductType("Food Processor", "Professional processor with", 99.99, 499.99),
+            new ProductType("Dishwasher", "Energy-efficient dishwasher with", 399.99, 999.99),
+            // Sports & Outdoors
+            new ProductType("Yoga Mat", "Non-slip yoga mat with", 19.99, 79.99),
+            new ProductType("Dumbbell Set", "Adjustable dumbbells with", 99.99, 499.99),
+            new ProductType("Treadmill", "Folding treadmill with", 399.99, 1999.99),
+            new ProductType("Bicycle", "Mountain bike with", 299.99, 1499.99),
+            new ProductType("Tent", "Camping tent with", 79.99, 399.99),
+            new ProductType("Sleeping Bag", "Insulated sleeping bag with", 39.99, 199.99),
+            new ProductType("Backpack", "Hiking backpack with", 49.99, 249.99),
+            new ProductType("Water Bottle", "Insulated bottle with", 19.99, 59.99),
+            new ProductType("Fitness Tracker", "Activity tracker with", 49.99, 199.99),
+            new ProductType("Running Shoes", "Performance shoes with", 79.99, 199.99),
+            // Books
+            new ProductType("Fiction Novel", "Bestselling novel with", 9.99, 29.99),
+            new ProductType("Cookbook", "Recipe collection with", 19.99, 49.99),
+            new ProductType("Self-Help Book", "Motivational guide with", 14.99, 34.99),
+            new ProductType("Technical Manual", "Programming guide with", 39.99, 79.99),
+            new ProductType("Biography", "Life story with", 19.99, 39.99),
+            new ProductType("Children Book", "Illustrated story with", 9.99, 24.99),
+            new ProductType("Textbook", "Educational textbook with", 49.99, 199.99),
+            new ProductType("Magazine", "Monthly magazine with", 4.99, 14.99),
+            new ProductType("Comic Book", "Graphic novel with", 12.99, 29.99),
+            new ProductType("Dictionary", "Comprehensive dictionary with", 29.99, 79.99),
+            // Clothing
+            new ProductType("T-Shirt", "Cotton t-shirt with", 14.99, 39.99),
+            new ProductType("Jeans", "Denim jeans with", 39.99, 99.99),
+            new ProductType("Jacket", "Waterproof jacket with", 79.99, 299.99),
+            new ProductType("Sneakers", "Casual sneakers with", 49.99, 149.99),
+            new ProductType("Dress", "Elegant dress with", 59.99, 199.99),
+            new ProductType("Sweater", "Wool sweater with", 39.99, 129.99),
+            new ProductType("Shorts", "Athletic shorts with", 24.99, 59.99),
+            new ProductType("Hat", "Baseball cap with", 14.99, 39.99),
+            new ProductType("Socks", "Performance socks with", 9.99, 24.99),
+            new ProductType("Belt", "Leather belt with", 19.99, 59.99),
+            // Toys & Games
+            new ProductType("Board Game", "Strategy game with", 19.99, 79.99),
+            new ProductType("Action Figure", "Collectible figure with", 14.99, 49.99),
+            new ProductType("Puzzle", "1000-piece puzzle with", 12.99, 39.99),
+            new ProductType("LEGO Set", "Building set with", 29.99, 299.99),
+            new ProductType("Doll", "Fashion doll with", 19.99, 79.99),
+            new ProductType("RC Car", "Remote control car with", 39.99, 199.99),
+            new ProductType("Video Game", "Popular game with", 39.99, 69.99),
+            new ProductType("Plush Toy", "Soft toy with", 14.99, 49.99),
+            new ProductType("Card Game", "Trading cards with", 9.99, 99.99),
+            new ProductType("Educational Toy", "Learning toy with", 24.99, 79.99),
+            // Office Supplies
+            new ProductType("Office Chair", "Ergonomic chair with", 149.99, 599.99),
+            new ProductType("Desk", "Standing desk with", 299.99, 999.99),
+            new ProductType("Printer", "Wireless printer with", 99.99, 399.99),
+            new ProductType("Notebook", "Hardcover notebook with", 9.99, 29.99),
+            new ProductType("Pen Set", "Premium pens with", 19.99, 79.99),
+            new ProductType("File Cabinet", "Metal cabinet with", 79.99, 299.99),
+            new ProductType("Desk Lamp", "LED lamp with", 29.99, 99.99),
+            new ProductType("Calculator", "Scientific calculator with", 14.99, 49.99),
+            new ProductType("Stapler", "Heavy-duty stapler with", 9.99, 39.99),
+            new ProductType("Whiteboard", "Magnetic board with", 39.99, 149.99),
+            // Automotive
+            new ProductType("Car Vacuum", "Portable vacuum with", 39.99, 129.99),
+            new ProductType("Dash Cam", "HD dash camera with", 79.99, 299.99),
+            new ProductType("Phone Mount", "Magnetic mount with", 14.99, 39.99),
+            new ProductType("Car Charger", "Fast charger with", 19.99, 49.99),
+            new ProductType("Floor Mats", "All-weather mats with", 39.99, 99.99),
+            new ProductType("Seat Covers", "Universal covers with", 49.99, 149.99),
+            new ProductType("Jump Starter", "Portable starter with", 59.99, 199.99),
+            new ProductType("Tire Inflator", "Digital inflator with", 29.99, 89.99),
+            new ProductType("Car Wax", "Premium wax with", 19.99, 49.99),
+            new ProductType("Tool Kit", "Emergency kit with", 39.99, 129.99),
+            // Beauty & Personal Care
+            new ProductType("Hair Dryer", "Professional dryer with", 49.99, 199.99),
+            new ProductType("Electric Shaver", "Cordless shaver with", 79.99, 299.99),
+            new ProductType("Makeup Set", "Complete set with", 39.99, 149.99),
+            new ProductType("Perfume", "Designer fragrance with", 49.99, 199.99),
+            new ProductType("Skincare Set", "Anti-aging set with", 59.99, 249.99),
+            new ProductType("Hair Straightener", "Ceramic straightener with", 39.99, 149.99),
+            new ProductType("Electric Toothbrush", "Sonic toothbrush with", 49.99, 199.99),
+            new ProductType("Nail Kit", "Manicure set with", 29.99, 79.99),
+            new ProductType("Massage Gun", "Percussion massager with", 79.99, 299.99),
+            new ProductType("Scale", "Smart scale with", 29.99, 99.99),
+            // Food & Beverages
+            new ProductType("Coffee Beans", "Premium beans with", 12.99, 39.99),
+            new ProductType("Tea Set", "Assorted teas with", 19.99, 59.99),
+            new ProductType("Protein Powder", "Whey protein with", 29.99, 79.99),
+            new ProductType("Snack Box", "Variety pack with", 19.99, 49.99),
+            new ProductType("Olive Oil", "Extra virgin oil with", 14.99, 39.99),
+            new ProductType("Spice Set", "Gourmet spices with", 24.99, 59.99),
+            new ProductType("Energy Drinks", "24-pack with", 19.99, 39.99),
+            new ProductType("Chocolate Box", "Assorted chocolates with", 14.99, 49.99),
+            new ProductType("Nuts Mix", "Premium nuts with", 12.99, 34.99),
+            new ProductType("Honey", "Organic honey with", 14.99, 39.99));
+
+    private static final String[] VARIATIONS = {
+            "Pro", "Plus", "Elite", "Premium", "Deluxe", "Ultra", "Max", "Advanced", "Professional",
+            "Standard", "Basic", "Essential", "Classic", "Modern", "Smart"};
+
+    private static final String[] MODELS = {
+            "X1", "X2", "X3", "Series A", "Series B", "Gen 2", "Gen 3", "V2", "V3",
+            "Model S", "Model M", "Model L", "2024", "2025"};
+
+    private static final String[] FEATURES = {
+            "advanced features", "premium quality", "latest technology", "innovative design",
+            "superior performance", "enhanced durability", "smart functionality", "eco-friendly materials",
+            "wireless connectivity", "fast charging", "long battery life", "compact design",
+            "professional grade", "user-friendly interface", "multi-function capability", "energy efficient",
+            "water resistant", "lightweight construction", "adjustable settings", "automatic operation",
+            "high capacity", "quick setup", "universal compatibility", "noise reduction",
+            "temperature control", "digital display", "remote control", "app integration",
+            "voice control", "LED indicators", "safety features", "warranty included"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductIdIndex productIdIndex;
+    private final ProductCache productCache;
+    private final ProductTableGeneration productTableGeneration;
+    private final ObjectProvider<ShardedProductRepository> shardedProductRepository;
+    private final int batchSize;
+    private final long maxCount;
+    private final long startupCount;
+    private final long startupSeed;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ProductDataGenerator(JdbcTemplate jdbcTemplate,
+                                ProductIdIndex productIdIndex,
+                                ProductCache productCache,
+                                ProductTableGeneration productTableGeneration,
+                                ObjectProvider<ShardedProductRepository> shardedProductRepository,
+                                @Value("${product.data.generate.batch-size:5000}") int batchSize,
+                                @Value("${product.data.generate.max-count:10000000}") long maxCount,
+                                @Value("${product.data.generate.count:0}") long startupCount,
+                                @Value("${product.data.generate.seed:42}") long startupSeed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productIdIndex = productIdIndex;
+        this.productCache = productCache;
+        this.productTableGeneration = productTableGeneration;
+        this.shardedProductRepository = shardedProductRepository;
+        this.batchSize = batchSize;
+        this.maxCount = maxCount;
+        this.startupCount = startupCount;
+        this.startupSeed = startupSeed;
+    }
+
+    /**
+     * Replaces the sample data with product.data.generate.count generated products at startup
+     * (e.g. --product.data.generate.count=1000000); does nothing when the count is 0.
+     * Runs right after the id index has loaded (the generation reloads it) and before the startup warm-up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void generateOnStartup() {
+        if (startupCount > 0) {
+            generate(startupCount, startupSeed, false);
+        }
+    }
+
+    /**
+     * Generates count products
+     *
+     * @param count  number of products to generate
+     * @param seed   seed of the deterministic generator
+     * @param append keep the existing rows and continue after the highest id; otherwise the table is truncated first
+     * @return generation statistics (rows, elapsed time, rows per second)
+     */
+    public Map<String, Object> generate(long count, long seed, boolean append) {
+        if (count <= 0 || count > maxCount) {
+            throw new IllegalArgumentException("count must be between 1 and " + maxCount);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Product generation is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            if (!append) {
+                jdbcTemplate.execute("TRUNCATE TABLE products RESTART IDENTITY");
+            }
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM products", Long.class);
+            long firstId = maxId + 1;
+            log.info("Generating {} products (seed {}, first id {}, batch size {})", count, seed, firstId, batchSize);
+
+            long inserted;
+            long indexMs = 0;
+            if (append) {
+                inserted = insert(firstId, count, seed);
+            } else {
+                // Maintaining the secondary indexes row by row costs more than the inserts themselves;
+                // on an empty table it is cheaper to build them once at the end
+                SECONDARY_INDEXES.keySet().forEach(name -> jdbcTemplate.execute("DROP INDEX IF EXISTS " + name));
+                try {
+                    inserted = insert(firstId, count, seed);
+                } finally {
+                    long indexStart = System.currentTimeMillis();
+                    SECONDARY_INDEXES.forEach((name, column) ->
+                            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + " ON products(" + column + ")"));
+                    indexMs = System.currentTimeMillis() - indexStart;
+                }
+            }
+            jdbcTemplate.execute("ALTER TABLE products ALTER COLUMN id RESTART WITH " + (firstId + count));
+            long loadMs = System.currentTimeMillis() - start;
+
+            productCache.clear();
+            productIdIndex.reload();
+            shardedProductRepository.ifAvailable(ShardedProductRepository::reload);
+            long elapsedMs = System.currentTimeMillis() - start;
+            Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+
+            long rowsPerSecond = loadMs > 0 ? inserted * 1000 / loadMs : inserted;
+            log.info("Generated {} products in {}ms ({} rows/sec, index build {}ms), {} products in table",
+                    inserted, loadMs, rowsPerSecond, indexMs, total);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("generated", inserted);
+            result.put("seed", seed);
+            result.put("append", append);
+            result.put("firstId", firstId);
+            result.put("lastId", firstId + count - 1);
+            result.put("totalProducts", total);
+            result.put("batchSize", batchSize);
+            result.put("rowsPerStatement", ROWS_PER_STATEMENT);
+            result.put("loadMs", loadMs);
+            result.put("indexBuildMs", indexMs);
+            result.put("elapsedMs", elapsedMs);
+            result.put("rowsPerSecond", rowsPerSecond);
+            result.put("timestamp", System.currentTimeMillis());
+            return result;
+        } finally {
+            productTableGeneration.bump();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Streams the rows on one connection as multi-row INSERTs (ROWS_PER_STATEMENT rows each),
+     * committing every batch so the undo log stays small no matter how many rows are generated
+     */
+    private long insert(long firstId, long count, long seed) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int statementsPerBatch = Math.max(1, batchSize / ROWS_PER_STATEMENT);
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(insertSql(ROWS_PER_STATEMENT))) {
+                long inserted = 0;
+                int pendingStatements = 0;
+                long row = 0;
+                for (; row + ROWS_PER_STATEMENT <= count; row += ROWS_PER_STATEMENT) {
+                    bindRows(ps, firstId, row, ROWS_PER_STATEMENT, seed, now);
+                    ps.addBatch();
+                    if (++pendingStatements == statementsPerBatch) {
+                        inserted += executeAndCommit(ps, connection);
+                        pendingStatements = 0;
+                        if ((row + ROWS_PER_STATEMENT) % 1_000_000 == 0) {
+                            log.info("  Generated {} products...", row + ROWS_PER_STATEMENT);
+                        }
+                    }
+                }
+                if (pendingStatements > 0) {
+                    inserted += executeAndCommit(ps, connection);
+                }
+
+                int remaining = (int) (count - row);
+                if (remaining > 0) {
+                    try (PreparedStatement tail = connection.prepareStatement(insertSql(remaining))) {
+                        bindRows(tail, firstId, row, remaining, seed, now);
+                        inserted += tail.executeUpdate();
+                        connection.commit();
+                    }
+                }
+                return inserted;
+            } catch (RuntimeException | SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private static long executeAndCommit(PreparedStatement ps, Connection connection) throws SQLException {
+        long inserted = 0;
+        for (int updated : ps.executeBatch()) {
+            inserted += updated;
+        }
+        connection.commit();
+        return inserted;
+    }
+
+    /**
+     * Binds rows [firstRow, firstRow + rows) of the run; each row draws from its own seeded generator,
+     * so its values do not depend on how the rows are grouped into statements
+     */
+    private static void bindRows(PreparedStatement ps, long firstId, long firstRow, int rows,
+                                 long seed, Timestamp now) throws SQLException {
+        int p = 1;
+        for (long row = firstRow; row < firstRow + rows; row++) {
+            SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + row);
+            ProductType type = PRODUCT_TYPES.get(random.nextInt(PRODUCT_TYPES.size()));
+
+            ps.setLong(p++, firstId + row);
+            ps.setString(p++, type.name + " " + VARIATIONS[random.nextInt(VARIATIONS.length)]
+                    + " " + MODELS[random.nextInt(MODELS.length)]);
+            ps.setString(p++, type.descriptionPrefix + " " + features(random));
+            ps.setBigDecimal(p++, BigDecimal.valueOf(
+                    Math.round(random.nextDouble(type.minPrice, type.maxPrice) * 100), 2));
+            ps.setInt(p++, random.nextInt(10, 501));
+            ps.setTimestamp(p++, now);
+            ps.setTimestamp(p++, now);
+        }
+    }
+
+    private static String insertSql(int rows) {
+        return INSERT_GENERATED + ", (?, ?, ?, ?, ?, ?, ?, 0)".repeat(rows - 1);
+    }
+
+    /**
+     * Three distinct features, like random.sample(FEATURES, 3)
+     */
+    private static String features(SplittableRandom random) {
+        int first = random.nextInt(FEATURES.length);
+        int second = random.nextInt(FEATURES.length - 1);
+        if (second >= first) {
+            second++;
+        }
+        int third;
+        do {
+            third = random.nextInt(FEATURES.length);
+        } while (third == first || third == second);
+        return FEATURES[first] + ", " + FEATURES[second] + ", " + FEATURES[third];
+    }
+
+    private record ProductType(String name, String descriptionPrefix, double minPrice, double maxPrice) {
+    }
+}
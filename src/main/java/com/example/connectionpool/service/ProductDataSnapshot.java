@@ -0,0 +1,141 @@
+package com.example.connectionpool.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Snapshot-based loading of the sample products (snapshot profile).
+ *
+ * Replaying sample-data-10000.sql parses and executes 10,000 INSERT statements on every boot.
+ * In snapshot mode the script is replayed once, the table is written to a CSV file with H2's
+ * CSVWRITE, and every later boot bulk loads that file with a single INSERT ... SELECT FROM CSVREAD.
+ * Delete the file (or change product.data.snapshot.source) to rebuild it.
+ *
+ * With a file-backed database (persistent profile) the rows survive restarts, so the source script
+ * is only replayed when the products table is empty (product.data.seed-if-empty).
+ *
+ * Runs after spring.sql.init has created the schema and before anything reads the products table.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@Slf4j
+public class ProductDataSnapshot implements InitializingBean {
+
+    private static final String COLUMNS =
+            "id, name, description, price, stock_quantity, external_api_response, last_updated, created_at, version";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceLoader resourceLoader;
+    private final boolean enabled;
+    private final boolean seedIfEmpty;
+    private final Path snapshotFile;
+    private final String source;
+
+    private long dataLoadMs = -1;
+    private String dataLoadMode = "spring.sql.init";
+
+    public ProductDataSnapshot(DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               ResourceLoader resourceLoader,
+                               @Value("${product.data.snapshot.enabled:false}") boolean enabled,
+                               @Value("${product.data.seed-if-empty:false}") boolean seedIfEmpty,
+                               @Value("${product.data.snapshot.file:snapshot/products.csv}") String snapshotFile,
+                               @Value("${product.data.snapshot.source:classpath:sample-data-10000.sql}") String source) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceLoader = resourceLoader;
+        this.enabled = enabled;
+        this.seedIfEmpty = seedIfEmpty;
+        this.snapshotFile = Path.of(snapshotFile).toAbsolutePath();
+        this.source = source;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (seedIfEmpty) {
+            seedIfEmpty();
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        if (Files.isRegularFile(snapshotFile)) {
+            long rows = restore();
+            dataLoadMode = "snapshot restore";
+            log.info("Restored {} products from snapshot {} in {}ms",
+                    rows, snapshotFile, System.currentTimeMillis() - start);
+        } else {
+            log.info("No product snapshot at {}, replaying {} and writing the snapshot", snapshotFile, source);
+            new ResourceDatabasePopulator(resourceLoader.getResource(source)).execute(dataSource);
+            long rows = write();
+            dataLoadMode = "script replay + snapshot write";
+            log.info("Loaded {} products from {} and wrote snapshot {} in {}ms",
+                    rows, source, snapshotFile, System.currentTimeMillis() - start);
+        }
+        dataLoadMs = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Replays the source script into an empty products table; rows persisted by an earlier run are kept
+     */
+    private void seedIfEmpty() {
+        long start = System.currentTimeMillis();
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        if (rows != null && rows > 0) {
+            dataLoadMode = "persisted rows";
+            log.info("Products table already holds {} persisted products, skipping {}", rows, source);
+        } else {
+            new ResourceDatabasePopulator(resourceLoader.getResource(source)).execute(dataSource);
+            dataLoadMode = "script replay into empty table";
+            log.info("Seeded empty products table from {} in {}ms", source, System.currentTimeMillis() - start);
+        }
+        dataLoadMs = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Bulk loads the CSV snapshot and moves the identity column past the restored ids
+     */
+    private long restore() {
+        // CSVREAD reads its arguments while the statement is prepared, so the file name cannot be a parameter
+        jdbcTemplate.update("INSERT INTO products (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM CSVREAD('" + snapshotFile.toString().replace("'", "''") + "', NULL, 'charset=UTF-8')");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM products", Long.class);
+        jdbcTemplate.execute("ALTER TABLE products ALTER COLUMN id RESTART WITH " + (maxId + 1));
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+    }
+
+    private long write() throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        jdbcTemplate.queryForObject("CALL CSVWRITE(?, ?, 'charset=UTF-8')", Long.class,
+                snapshotFile.toString(), "SELECT " + COLUMNS + " FROM products ORDER BY id");
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+    }
+
+    /**
+     * Startup phase timings: JVM start until Spring began, context refresh, and time to ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void logStartupPhases(ApplicationReadyEvent event) {
+        long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        long readyMs = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+        log.info("Startup phases: JVM launch {}ms, Spring start to ready {}ms, product data ({}) {}, total uptime {}ms",
+                readyMs >= 0 ? uptimeMs - readyMs : -1, readyMs, dataLoadMode,
+                dataLoadMs >= 0 ? dataLoadMs + "ms" : "timed by spring.sql.init", uptimeMs);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.dto.ProductRequest;
+import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit for single-product creates.
+ *
+ * Concurrent POST /api/products requests are collected for a short window (or until the group
+ * is full) and inserted as one JDBC batch in one transaction, so N concurrent creates pay for
+ * one commit instead of N. Each caller blocks until its group has committed and then gets its
+ * own generated id.
+ *
+ * If a group fails, its requests are retried one by one in separate transactions, so a single
+ * bad row only fails its own request.
+ */
+@Component
+@Slf4j
+public class ProductGroupCommitter {
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductIdIndex productIdIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+
+    // Creates are keyed by a sequence number, so identical requests are never coalesced
+    private final AtomicLong sequence = new AtomicLong();
+    private final WindowedBatcher<Object, Long, PendingCreate> batcher;
+    private final ExecutorService committer = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder creates = new LongAdder();
+    private final LongAdder groupsCommitted = new LongAdder();
+    private final LongAdder groupFailures = new LongAdder();
+    private final LongAdder rowsCommitted = new LongAdder();
+
+    public ProductGroupCommitter(ProductJdbcRepository productJdbcRepository,
+                                 ProductIdIndex productIdIndex,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${product.create.group-commit.enabled:false}") boolean enabled,
+                                 @Value("${product.create.group-commit.window-micros:5000}") long windowMicros,
+                                 @Value("${product.create.group-commit.max-batch-size:200}") int maxBatchSize) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.productIdIndex = productIdIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.batcher = new WindowedBatcher<>("product-group-commit", windowMicros, maxBatchSize,
+                (group, creates) -> dispatch(List.copyOf(creates.values())));
+        log.info("Product group commit {} (window: {}us, max batch size: {})",
+                enabled ? "enabled" : "disabled", windowMicros, maxBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the create and waits until its group has committed
+     */
+    public ProductResponse create(ProductRequest request) {
+        try {
+            return submit(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<ProductResponse> submit(ProductRequest request) {
+        creates.increment();
+        PendingCreate create = new PendingCreate(request, new CompletableFuture<>());
+        return batcher.add(null, sequence.incrementAndGet(), () -> create).future;
+    }
+
+    private void dispatch(List<PendingCreate> group) {
+        committer.execute(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids;
+            try {
+                ids = insert(group, now);
+            } catch (RuntimeException e) {
+                // Nothing was committed, so every create can safely be retried on its own
+                groupFailures.increment();
+                log.warn("Group commit of {} products failed ({}), retrying them one by one",
+                        group.size(), e.getMessage());
+                retrySingly(group);
+                return;
+            }
+            groupsCommitted.increment();
+            log.debug("Group of {} product creates committed in one transaction", group.size());
+            complete(group, ids, now);
+        });
+    }
+
+    private void retrySingly(List<PendingCreate> group) {
+        for (PendingCreate create : group) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids;
+            try {
+                ids = insert(List.of(create), now);
+            } catch (RuntimeException single) {
+                log.error("Error creating product {}: {}", create.request.getName(), single.getMessage());
+                create.future.completeExceptionally(single);
+                continue;
+            }
+            complete(List.of(create), ids, now);
+        }
+    }
+
+    /**
+     * Inserts the creates in one transaction and returns their generated ids
+     */
+    private List<Long> insert(List<PendingCreate> group, LocalDateTime now) {
+        List<ProductRequest> requests = group.stream().map(PendingCreate::request).toList();
+        List<Long> ids = transactionTemplate.execute(status ->
+                productJdbcRepository.insertBatch(requests, requests.size(), now));
+        rowsCommitted.add(ids.size());
+        return ids;
+    }
+
+    /**
+     * Completes the callers of a committed group; runs outside the insert, so a failure here is never retried
+     */
+    private void complete(List<PendingCreate> group, List<Long> ids, LocalDateTime now) {
+        for (int i = 0; i < group.size(); i++) {
+            PendingCreate create = group.get(i);
+            Long id = ids.get(i);
+            try {
+                productIdIndex.add(id);
+                create.future.complete(toResponse(id, create.request, now));
+            } catch (RuntimeException e) {
+                log.error("Product {} committed but completing its request failed: {}", id, e.getMessage());
+                create.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static ProductResponse toResponse(Long id, ProductRequest request, LocalDateTime now) {
+        return ProductResponse.builder()
+                .id(id)
+                .name(request.getName())
+                .description(request.getDescription())
+                .price(request.getPrice())
+                .stockQuantity(request.getStockQuantity())
+                .lastUpdated(now)
+                .message("Product created successfully")
+                .build();
+    }
+
+    /**
+     * Group commit statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        long groups = groupsCommitted.sum();
+        long rows = rowsCommitted.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMicros", windowMicros);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("creates", creates.sum());
+        stats.put("groupsCommitted", groups);
+        stats.put("groupsCommittedFull", batcher.getBatchesFull());
+        stats.put("groupFailures", groupFailures.sum());
+        stats.put("rowsCommitted", rows);
+        stats.put("averageGroupSize", groups > 0 ? Math.round(rows * 10.0 / groups) / 10.0 : 0.0);
+        stats.put("largestGroup", batcher.getLargestBatch());
+        stats.put("commitsSaved", Math.max(0, rows - groups));
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Commit the open group instead of leaving its callers waiting on a window that never closes
+        batcher.shutdown();
+        committer.shutdown();
+        try {
+            committer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingCreate(ProductRequest request, CompletableFuture<ProductResponse> future) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory existence index of product ids, answering "definitely not present" without a query.
+ *
+ * Product ids are IDENTITY values, so they are dense and a plain bitset (one bit per id, 1.25 MB
+ * per 10M ids) is exact, smaller than a Bloom filter with a useful error rate, and supports removal.
+ *
+ * The index only ever errs towards "maybe present":
+ * - until the initial load has finished every id is reported as maybe present
+ * - ids are added before their insert commits (a rollback leaves a harmless extra bit)
+ * - ids are removed only after their delete commits
+ * A "maybe" still goes to the database, so correctness never depends on the index.
+ *
+ * Reads are lock-free; writers synchronize so growing the bitset cannot lose a concurrent update.
+ */
+@Component
+@Slf4j
+public class ProductIdIndex {
+
+    private static final int INITIAL_WORDS = 1024;
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final boolean enabled;
+
+    private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_WORDS);
+    private volatile boolean loaded;
+    private long size;
+    private long loadTimeMs;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public ProductIdIndex(ProductJdbcRepository productJdbcRepository,
+                          @Value("${product.id-index.enabled:true}") boolean enabled) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Loads every existing id once the schema and sample data are in place; runs before the other
+     * ApplicationReadyEvent listeners, so the startup warm-up already finds the index loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        if (!enabled) {
+            log.info("Product id index disabled");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long rows = productJdbcRepository.forEachId(LOAD_FETCH_SIZE, this::add);
+        loadTimeMs = System.currentTimeMillis() - start;
+        loaded = true;
+        log.info("Product id index loaded: {} ids in {}ms ({} KB)", rows, loadTimeMs, words.length() * 8L / 1024);
+    }
+
+    /**
+     * false = the id definitely does not exist; true = it may exist, ask the database
+     */
+    public boolean mightExist(Long id) {
+        if (!enabled || !loaded) {
+            return true;
+        }
+        lookups.increment();
+        boolean present = id != null && id > 0 && isSet(words, id);
+        if (!present) {
+            definitelyAbsent.increment();
+        }
+        return present;
+    }
+
+    /**
+     * Record that the index said "maybe" but the database had no such row
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public synchronized void add(long id) {
+        if (id <= 0) {
+            return;
+        }
+        int word = wordIndex(id);
+        if (word >= words.length()) {
+            grow(word);
+        }
+        long mask = 1L << id;
+        long previous = words.getAndUpdate(word, w -> w | mask);
+        if ((previous & mask) == 0) {
+            size++;
+        }
+    }
+
+    public synchronized void remove(long id) {
+        if (id <= 0) {
+            return;
+        }
+        int word = wordIndex(id);
+        if (word >= words.length()) {
+            return;
+        }
+        long mask = 1L << id;
+        long previous = words.getAndUpdate(word, w -> w & ~mask);
+        if ((previous & mask) != 0) {
+            size--;
+        }
+    }
+
+    /**
+     * Removes the id once the surrounding transaction commits (immediately if there is none).
+     * Removing earlier would report a row as absent while a rollback could still bring it back.
+     */
+    public void removeAfterCommit(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(id);
+                }
+            });
+        } else {
+            remove(id);
+        }
+    }
+
+    /**
+     * Drops and reloads the index, e.g. after rows were written outside of the application
+     */
+    public void reload() {
+        synchronized (this) {
+            loaded = false;
+            words = new AtomicLongArray(INITIAL_WORDS);
+            size = 0;
+        }
+        load();
+    }
+
+    /**
+     * Index statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        long lookupCount = lookups.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("loadTimeMs", loadTimeMs);
+        stats.put("ids", currentSize());
+        stats.put("memoryBytes", words.length() * 8L);
+        stats.put("lookups", lookupCount);
+        stats.put("definitelyAbsent", definitelyAbsent.sum());
+        stats.put("absentRatio", lookupCount > 0 ? Math.round(definitelyAbsent.sum() * 1000.0 / lookupCount) / 10.0 : 0.0);
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    private synchronized long currentSize() {
+        return size;
+    }
+
+    private void grow(int word) {
+        AtomicLongArray current = words;
+        int length = current.length();
+        while (length <= word) {
+            length *= 2;
+        }
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+    }
+
+    private static boolean isSet(AtomicLongArray bits, long id) {
+        int word = wordIndex(id);
+        return word < bits.length() && (bits.get(word) & (1L << id)) != 0;
+    }
+
+    private static int wordIndex(long id) {
+        return (int) (id >>> 6);
+    }
+}
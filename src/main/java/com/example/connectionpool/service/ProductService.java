@@ -1,16 +1,42 @@
 package com.example.connectionpool.service;
 
 import com.example.connectionpool.dto.ExternalApiResponse;
+import com.example.connectionpool.dto.ProductBulkResponse;
+import com.example.connectionpool.dto.ProductPageResponse;
 import com.example.connectionpool.dto.ProductRequest;
 import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.dto.ProductView;
 import com.example.connectionpool.entity.Product;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.repository.ProductJdbcRepository;
 import com.example.connectionpool.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,43 +46,95 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final PostmanEchoService postmanEchoService;
+    private final ProductCache productCache;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductBatchLoader productBatchLoader;
+    private final ProductIdIndex productIdIndex;
+    private final ProductTouchBuffer productTouchBuffer;
+    private final ProductTableGeneration productTableGeneration;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public static final String PAGE_SORT_ID = "id";
+    public static final String PAGE_SORT_PRICE = "price";
+
+    @Value("${product.process.max-attempts:3}")
+    private int processMaxAttempts;
+
+    @Value("${product.bulk.batch-size:500}")
+    private int bulkBatchSize;
+
+    @Value("${product.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${product.stream.flush-every:500}")
+    private int streamFlushEvery;
 
     /**
      * Main endpoint logic: Query database, call external API, and update based on result
+     *
+     * Runs in three phases so no DB connection is held during the external HTTP call:
+     * 1. Short read-only transaction to load the product (repository findById)
+     * 2. External API call outside of any transaction
+     * 3. Short conditional UPDATE guarded by the @Version column
+     * If another request changed the row in between, the update matches no row and
+     * phases 1 and 3 are retried with the external result already in hand.
      */
-    @Transactional
     public ProductResponse processProduct(Long productId) {
         log.info("Processing product with ID: {}", productId);
 
-        // Step 1: Query the database
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        ExternalApiResponse apiResponse = null;
 
-        log.info("Found product: {}", product.getName());
+        if (!productIdIndex.mightExist(productId)) {
+            throw new ProductNotFoundException(productId);
+        }
 
-        // Step 2: Call external dummy API
-        ExternalApiResponse apiResponse = postmanEchoService.callExternalApi();
-        log.info("External API response received: {}", apiResponse.getTitle());
+        for (int attempt = 1; attempt <= processMaxAttempts; attempt++) {
+            // Phase 1: Query the database (connection released when findById returns)
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
 
-        // Step 3: Update product based on API result
-        product.setExternalApiResponse(apiResponse.getTitle());
-        
-        // Business logic: Update stock quantity based on API response
-        if (apiResponse.getTitle().length() > 50) {
-            product.setStockQuantity(product.getStockQuantity() + 10);
-            log.info("Increased stock quantity by 10");
-        } else {
-            product.setStockQuantity(Math.max(0, product.getStockQuantity() - 5));
-            log.info("Decreased stock quantity by 5");
-        }
+            log.info("Found product: {} (version {})", product.getName(), product.getVersion());
 
-        // Save updated product
-        Product updatedProduct = productRepository.save(product);
-        log.info("Product updated successfully");
+            // Phase 2: Call external dummy API - no transaction, no connection held
+            if (apiResponse == null) {
+                apiResponse = postmanEchoService.callExternalApi();
+                log.info("External API response received: {}", apiResponse.getTitle());
+            }
 
-        return mapToResponse(updatedProduct, "Product processed and updated successfully");
-    }
+            // Business logic: Update stock quantity based on API response
+            int newStockQuantity;
+            if (apiResponse.getTitle().length() > 50) {
+                newStockQuantity = product.getStockQuantity() + 10;
+                log.info("Increasing stock quantity by 10");
+            } else {
+                newStockQuantity = Math.max(0, product.getStockQuantity() - 5);
+                log.info("Decreasing stock quantity by 5");
+            }
+
+            // Phase 3: Conditional update, only if nobody changed the row since phase 1
+            LocalDateTime now = LocalDateTime.now();
+            int updated = productRepository.updateProcessedIfVersionMatches(
+                    productId, product.getVersion(), apiResponse.getTitle(), newStockQuantity, now);
 
+            if (updated == 1) {
+                productCache.invalidate(productId);
+                productTableGeneration.bump();
+                log.info("Product updated successfully on attempt {}", attempt);
+
+                product.setExternalApiResponse(apiResponse.getTitle());
+                product.setStockQuantity(newStockQuantity);
+                product.setLastUpdated(now);
+                product.setVersion(product.getVersion() + 1);
+                return mapToResponse(product, "Product processed and updated successfully");
+            }
+
+            log.warn("Version conflict while processing product {} (attempt {}/{}), retrying",
+                    productId, attempt, processMaxAttempts);
+        }
+
+        throw new ObjectOptimisticLockingFailureException(Product.class, productId);
+    }
 
     /**
      * Create a new product
@@ -72,51 +150,320 @@ public class ProductService {
         product.setStockQuantity(request.getStockQuantity());
 
         Product savedProduct = productRepository.save(product);
+        productCache.invalidate(savedProduct.getId());
+        productTableGeneration.bump();
+        productIdIndex.add(savedProduct.getId());
         log.info("Product created with ID: {}", savedProduct.getId());
 
         return mapToResponse(savedProduct, "Product created successfully");
     }
 
+    /**
+     * Create many products in one transaction with JDBC batch inserts
+     * Bypasses JPA: with IDENTITY ids Hibernate must run one INSERT per entity to learn each id,
+     * whereas a JDBC batch sends batchSize rows per round trip and reads the ids back in one go.
+     */
+    @Transactional
+    public ProductBulkResponse createProducts(List<ProductRequest> requests) {
+        log.info("Bulk creating {} products (batch size {})", requests.size(), bulkBatchSize);
+        long start = System.nanoTime();
+
+        List<Long> ids = productJdbcRepository.insertBatch(requests, bulkBatchSize, LocalDateTime.now());
+        ids.forEach(productIdIndex::add);
+
+        long elapsedNanos = System.nanoTime() - start;
+        long rowsPerSecond = elapsedNanos > 0 ? Math.round(ids.size() * 1_000_000_000.0 / elapsedNanos) : 0;
+        log.info("Bulk created {} products in {}ms ({} rows/sec)",
+                ids.size(), elapsedNanos / 1_000_000, rowsPerSecond);
+
+        return ProductBulkResponse.builder()
+                .created(ids.size())
+                .batches((requests.size() + bulkBatchSize - 1) / bulkBatchSize)
+                .batchSize(bulkBatchSize)
+                .elapsedMs(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .ids(ids)
+                .build();
+    }
+
     /**
      * Get all products
      */
     @Transactional(readOnly = true)
     public List<ProductResponse> getAllProducts() {
         log.info("Fetching all products");
-        List<Product> products = productRepository.findAll();
+        List<ProductView> products = productRepository.findAllViews();
         return products.stream()
                 .map(p -> mapToResponse(p, null))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get product by ID
+     * Stream all products as newline-delimited JSON (one ProductResponse per line)
+     * Rows are read with a forward-only cursor and written as they arrive, so memory
+     * stays flat regardless of table size. The connection is held until the last row is written.
+     */
+    public long streamAllProducts(OutputStream outputStream) throws IOException {
+        log.info("Streaming all products (fetch size: {})", streamFetchSize);
+        long startTime = System.currentTimeMillis();
+
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long[] written = {0};
+
+            long rows = productJdbcRepository.streamAllOrderedById(streamFetchSize, product -> {
+                try {
+                    writer.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                    if (++written[0] % streamFlushEvery == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+
+            log.info("Streamed {} products in {}ms", rows, System.currentTimeMillis() - startTime);
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get one page of products ordered by id (keyset pagination)
+     * The cursor is the opaque nextCursor of the previous page, or null for the first page
      */
     @Transactional(readOnly = true)
+    public ProductPageResponse getProductsPage(String cursor, int limit) {
+        log.info("Fetching product page by id, limit: {}", limit);
+        Limit fetchLimit = Limit.of(limit + 1);
+
+        List<ProductView> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findViewsOrderedById(fetchLimit);
+        } else {
+            String[] parts = decodeCursor(cursor, PAGE_SORT_ID, 2);
+            products = productRepository.findViewsOrderedByIdAfter(parseCursorLong(parts[1]), fetchLimit);
+        }
+
+        return toPage(products, PAGE_SORT_ID, limit, last -> encodeCursor(PAGE_SORT_ID, last.id().toString()));
+    }
+
+    /**
+     * Get one page of products ordered by price, then id (keyset pagination over idx_products_price)
+     */
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductsPageByPrice(String cursor, int limit) {
+        log.info("Fetching product page by price, limit: {}", limit);
+        Limit fetchLimit = Limit.of(limit + 1);
+
+        List<ProductView> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findViewsOrderedByPrice(fetchLimit);
+        } else {
+            String[] parts = decodeCursor(cursor, PAGE_SORT_PRICE, 3);
+            Double price;
+            try {
+                price = Double.valueOf(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            products = productRepository.findViewsOrderedByPriceAfter(price, parseCursorLong(parts[2]), fetchLimit);
+        }
+
+        return toPage(products, PAGE_SORT_PRICE, limit,
+                last -> encodeCursor(PAGE_SORT_PRICE, last.price().toString(), last.id().toString()));
+    }
+
+    private ProductPageResponse toPage(List<ProductView> products, String sort, int limit,
+                                       Function<ProductView, String> cursorOf) {
+        boolean hasMore = products.size() > limit;
+        List<ProductView> pageItems = hasMore ? products.subList(0, limit) : products;
+
+        return ProductPageResponse.builder()
+                .items(pageItems.stream().map(p -> mapToResponse(p, null)).collect(Collectors.toList()))
+                .sort(sort)
+                .limit(limit)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(pageItems.get(pageItems.size() - 1)) : null)
+                .build();
+    }
+
+    private static String encodeCursor(String... parts) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(":", parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor, String expectedSort, int expectedParts) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != expectedParts || !expectedSort.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor for sort '" + expectedSort + "'");
+        }
+        return parts;
+    }
+
+    private static long parseCursorLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Get product by ID (read-through cache)
+     * Not @Transactional on purpose: opening a transaction borrows a connection up front,
+     * so a cache hit is answered without touching the pool. Only a miss calls the
+     * repository, which runs its own short read-only transaction.
+     */
     public ProductResponse getProductById(Long id) {
+        ProductResponse cached = productCache.get(id);
+        if (cached != null) {
+            log.debug("Cache hit for product ID: {}", id);
+            return cached;
+        }
+        return mapToResponse(loadAndCache(id), null);
+    }
+
+    /**
+     * Get product by ID as ready-to-send JSON bytes
+     * Repeat reads of a cached product reuse the bytes encoded on the first read, so they cost
+     * neither serialization CPU nor garbage. The returned array is shared and must not be modified.
+     */
+    public byte[] getProductJsonById(Long id) {
+        byte[] cached = productCache.getJson(id);
+        if (cached != null) {
+            log.debug("Cache hit (JSON) for product ID: {}", id);
+            return cached;
+        }
+        return productCache.encode(mapToResponse(loadAndCache(id), null));
+    }
+
+    /**
+     * Current row version of a product, for ETags
+     * Answered from the cache when possible; a miss loads (and caches) the row, and an id the
+     * existence index knows to be absent throws without a query.
+     */
+    public long getProductVersion(Long id) {
+        Long cached = productCache.getVersion(id);
+        if (cached != null) {
+            return cached;
+        }
+        return loadAndCache(id).version();
+    }
+
+    /**
+     * Version of a product if it is cached, or null; never reads the database
+     */
+    public Long getCachedProductVersion(Long id) {
+        return productCache.getVersion(id);
+    }
+
+    /**
+     * Generation of the whole product list, without a query (see ProductTableGeneration)
+     */
+    public String getProductsGeneration() {
+        return productTableGeneration.current();
+    }
+
+    /**
+     * Strong entity tag of a product representation; changes whenever the row version changes
+     */
+    public static String etag(Long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    private ProductView loadAndCache(Long id) {
+        // Known-absent ids are rejected without borrowing a connection
+        if (!productIdIndex.mightExist(id)) {
+            throw new ProductNotFoundException(id);
+        }
+
         log.info("Fetching product with ID: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return mapToResponse(product, null);
+        long stamp = productCache.stamp(id);
+        ProductView product = loadView(id).orElseThrow(() -> {
+            productIdIndex.recordFalsePositive();
+            return new ProductNotFoundException(id);
+        });
+        productCache.put(id, mapToResponse(product, null), product.version(), stamp);
+        return product;
+    }
+
+    /**
+     * Get several products by ID in one round trip
+     * Cached products are served from the cache; the rest are read with a single IN query.
+     * Unknown IDs are skipped, duplicates are returned once, request order is preserved.
+     */
+    public List<ProductResponse> getProductsByIds(List<Long> ids) {
+        log.info("Fetching {} products by ID", ids.size());
+
+        Map<Long, ProductResponse> found = new HashMap<>();
+        Map<Long, Long> missStamps = new LinkedHashMap<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            ProductResponse cached = productCache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else if (productIdIndex.mightExist(id)) {
+                missStamps.put(id, productCache.stamp(id));
+            }
+        }
+
+        if (!missStamps.isEmpty()) {
+            for (ProductView view : productJdbcRepository.findViewsByIds(missStamps.keySet())) {
+                ProductResponse response = mapToResponse(view, null);
+                productCache.put(view.id(), response, view.version(), missStamps.get(view.id()));
+                found.put(view.id(), response);
+            }
+        }
+
+        return new LinkedHashSet<>(ids).stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Single-id load on a cache miss: coalesced with concurrent lookups when the batch loader is on
+     */
+    private Optional<ProductView> loadView(Long id) {
+        if (productBatchLoader.isEnabled()) {
+            return productBatchLoader.loadNow(id);
+        }
+        return productJdbcRepository.findViewById(id);
     }
 
     /**
      * Delete product
+     * Not @Transactional on purpose: an outer transaction would borrow a connection before the
+     * id index gets a chance to reject an unknown id. existsById and deleteById each run in
+     * their own short repository transaction.
      */
-    @Transactional
     public void deleteProduct(Long id) {
         log.info("Deleting product with ID: {}", id);
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found with id: " + id);
+        if (!productIdIndex.mightExist(id) || !productRepository.existsById(id)) {
+            throw new ProductNotFoundException(id);
         }
         productRepository.deleteById(id);
+        productCache.invalidate(id);
+        productTableGeneration.bump();
+        productIdIndex.removeAfterCommit(id);
         log.info("Product deleted successfully");
     }
 
     /**
      * Helper method to map Product entity to ProductResponse DTO
      */
-    private ProductResponse mapToResponse(Product product, String message) {
+    static ProductResponse mapToResponse(Product product, String message) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
@@ -129,24 +476,56 @@ public class ProductService {
                 .build();
     }
 
+    /**
+     * Helper method to map a ProductView projection to ProductResponse DTO
+     */
+    static ProductResponse mapToResponse(ProductView product, String message) {
+        return ProductResponse.builder()
+                .id(product.id())
+                .name(product.name())
+                .description(product.description())
+                .price(product.price())
+                .stockQuantity(product.stockQuantity())
+                .externalApiResponse(product.externalApiResponse())
+                .lastUpdated(product.lastUpdated())
+                .message(message)
+                .build();
+    }
+
     /**
      * Update product's last_updated timestamp to current time
      * This is useful for tracking when a product was last accessed/modified
+     *
+     * With write-behind enabled the touch is only buffered and written in a later JDBC batch
+     * (see ProductTouchBuffer), so the caller neither borrows a connection nor writes a row.
+     * Not @Transactional for that reason; only the synchronous update runs in a transaction.
      */
-    @Transactional
     public void updateProductTimestamp(Long productId) {
+        if (productTouchBuffer.isEnabled()) {
+            if (!productIdIndex.mightExist(productId)) {
+                throw new ProductNotFoundException(productId);
+            }
+            log.debug("Buffering timestamp touch for product ID: {}", productId);
+            productTouchBuffer.touch(productId);
+            return;
+        }
+
         log.info("Updating timestamp for product ID: {}", productId);
         
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        
-        // JPA will automatically update the last_updated field to current timestamp
-        // when we save the entity (if using @PreUpdate or similar)
-        // For explicit update, we can use a query or just save
-        product.setLastUpdated(java.time.LocalDateTime.now());
-        productRepository.save(product);
-        
-        log.info("Updated timestamp for product: {}", product.getName());
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
+
+            // JPA will automatically update the last_updated field to current timestamp
+            // when we save the entity (if using @PreUpdate or similar)
+            // For explicit update, we can use a query or just save
+            product.setLastUpdated(java.time.LocalDateTime.now());
+            productRepository.save(product);
+            productCache.invalidate(productId);
+            productTableGeneration.bump();
+
+            log.info("Updated timestamp for product: {}", product.getName());
+        });
     }
 }
 
@@ -1,46 +1,94 @@
 package com.example.connectionpool.service;
 
-import com.example.connectionpool.dto.ProductResponse;
-import com.example.connectionpool.entity.Product;
-import com.example.connectionpool.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.connectionpool.dto.ProductView;
+import com.example.connectionpool.dto.VersionedProductResponse;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ProductServiceAsync {
 
-    private final ProductRepository productRepository;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductBatchLoader productBatchLoader;
+    private final ProductIdIndex productIdIndex;
+    private final ProductCache productCache;
     private final MockApiService mockApiService;
+    private final AsyncMockApiClient asyncMockApiClient;
+    private final Executor taskExecutor;
     
     @Value("${product.api.v2.sleep.ms:0}")
     private long productApiV2SleepMs;
 
+    // Virtual threads for lookups without the batch loader; bulkhead carried over from the caller
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Executor bulkheadLookupExecutor = task -> lookupExecutor.execute(ConnectionBulkheads.propagate(task));
+
+    @Value("${product.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    // Concurrent v2 requests for the same id share one DB fetch and one mock API call
+    private final SingleFlight<Long, ProductView> productFlight = new SingleFlight<>("product-fetch");
+    private final SingleFlight<Long, String> mockApiFlight = new SingleFlight<>("mock-api");
+
+    public ProductServiceAsync(ProductJdbcRepository productJdbcRepository,
+                               ProductBatchLoader productBatchLoader,
+                               ProductIdIndex productIdIndex,
+                               ProductCache productCache,
+                               MockApiService mockApiService,
+                               AsyncMockApiClient asyncMockApiClient,
+                               @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.productBatchLoader = productBatchLoader;
+        this.productIdIndex = productIdIndex;
+        this.productCache = productCache;
+        this.mockApiService = mockApiService;
+        this.asyncMockApiClient = asyncMockApiClient;
+        this.taskExecutor = taskExecutor;
+    }
+
     /**
      * Non-blocking version: Fetches product from DB and releases connection immediately
      * This prevents holding a DB connection during the mock API call
+     * No thread waits for the row: the lookup is chained to the batch loader's future, or runs on
+     * a virtual thread when batching is off, under the caller's connection bulkhead either way.
+     * The loaded row is cached like ProductService.loadAndCache does (stamp taken before the read),
+     * so the next v2 request for the id can be answered 304 without a query.
      */
-    @Async("taskExecutor")
-    //@Transactional(readOnly = true)
-    public CompletableFuture<Product> getProductByIdAsync(Long id) {
+    public CompletableFuture<ProductView> getProductByIdAsync(Long id) {
         log.info("[ASYNC] Fetching product {} from database - Thread: {}", 
             id, Thread.currentThread().getName());
         
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        
-        log.info("[ASYNC] Product {} fetched successfully, DB connection will be released - Thread: {}", 
-            id, Thread.currentThread().getName());
-        
-        // Return immediately - transaction ends here, DB connection is released
-        return CompletableFuture.completedFuture(product);
+        if (!productIdIndex.mightExist(id)) {
+            return CompletableFuture.failedFuture(new ProductNotFoundException(id));
+        }
+
+        long stamp = productCache.stamp(id);
+        CompletableFuture<Optional<ProductView>> row = productBatchLoader.isEnabled()
+                ? productBatchLoader.load(id)
+                : CompletableFuture.supplyAsync(() -> productJdbcRepository.findViewById(id), bulkheadLookupExecutor);
+        return row.thenApply(product -> {
+            log.info("[ASYNC] Product {} fetched successfully, DB connection released - Thread: {}",
+                id, Thread.currentThread().getName());
+            ProductView view = product.orElseThrow(() -> new ProductNotFoundException(id));
+            productCache.put(id, ProductService.mapToResponse(view, null), view.version(), stamp);
+            return view;
+        });
     }
 
     /**
@@ -62,20 +110,26 @@ public class ProductServiceAsync {
     /**
      * Combines product data with mock API response asynchronously
      * DB connection is only held during the brief query, not during the mock API delay
+     * The response carries the version of the row it was built from, for the ETag.
      */
-    public CompletableFuture<ProductResponse> getProductWithMockApiAsync(Long id) {
+    public CompletableFuture<VersionedProductResponse> getProductWithMockApiAsync(Long id) {
         long startTime = System.currentTimeMillis();
         
         log.info("[ASYNC] Starting non-blocking product fetch for ID: {}", id);
         
         // Step 1: Fetch product from DB (async, releases connection immediately after query)
-        CompletableFuture<Product> productFuture = getProductByIdAsync(id);
+        CompletableFuture<ProductView> productFuture = singleFlight(productFlight, id, () -> getProductByIdAsync(id));
         
         // Step 2: Call mock API (async, runs in parallel or after product fetch)
         // Important: This happens AFTER the DB transaction completes and connection is released
         CompletableFuture<String> mockApiFuture = productFuture.thenCompose(product -> {
             log.info("[ASYNC] Product fetched, now calling mock API without holding DB connection");
-            return callMockApiAsync(id);
+            // With the async client no thread waits for the response; otherwise the blocking call is
+            // submitted to taskExecutor explicitly (self-invocation bypasses @Async), so callers that
+            // join this shared call are not serialized behind the blocking HTTP request
+            return singleFlight(mockApiFlight, id, () -> asyncMockApiClient.isEnabled()
+                    ? asyncMockApiClient.callMockApi(id)
+                    : CompletableFuture.supplyAsync(() -> mockApiService.callMockApi(id), taskExecutor));
         });
         
         // Step 3: Combine results
@@ -85,7 +139,8 @@ public class ProductServiceAsync {
             
             log.info("[ASYNC] Combining results for product {} - Total time: {}ms", id, totalTime);
             
-            // Configurable sleep before returning response (runs in taskExecutor thread)
+            // Configurable sleep before returning response (runs on the thread that completed the mock
+            // API call: a taskExecutor thread, or a virtual thread with the async client)
             if (productApiV2SleepMs > 0) {
                 try {
                     log.info("[ASYNC-V2] Sleeping for {} ms in taskExecutor thread: {}", 
@@ -102,17 +157,34 @@ public class ProductServiceAsync {
             long finalEndTime = System.currentTimeMillis();
             long finalTotalTime = finalEndTime - startTime;
             
-            return ProductResponse.builder()
-                    .id(product.getId())
-                    .name(product.getName())
-                    .description(product.getDescription())
-                    .price(product.getPrice())
-                    .stockQuantity(product.getStockQuantity())
-                    .externalApiResponse(product.getExternalApiResponse())
-                    .lastUpdated(product.getLastUpdated())
-                    .message(String.format("%s | Total processing time: %dms", mockApiResponse, finalTotalTime))
-                    .build();
+            return new VersionedProductResponse(ProductService.mapToResponse(product,
+                    String.format("%s | Total processing time: %dms", mockApiResponse, finalTotalTime)),
+                    product.version());
         });
     }
-}
 
+    private <T> CompletableFuture<T> singleFlight(SingleFlight<Long, T> flight, Long id,
+                                                  Supplier<CompletableFuture<T>> call) {
+        if (!singleFlightEnabled) {
+            return call.get();
+        }
+        return flight.execute(id, call);
+    }
+
+    /**
+     * Single-flight statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getSingleFlightStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", singleFlightEnabled);
+        stats.put("productFetch", productFlight.getStats());
+        stats.put("mockApi", mockApiFlight.getStats());
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdown();
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.connectionpool.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory vs file-backed (MVStore) H2 for the product workload.
+ *
+ * Each run creates two scratch databases next to the application's own: jdbc:h2:mem and jdbc:h2:file
+ * in a temporary directory, with the given cache size, write delay and compression. Both get the
+ * products schema and the same workload on one connection:
+ * - load: rows products in JDBC batches, one commit per batch
+ * - startup: opening the database until the products are queryable. In memory that means creating
+ *   the schema and loading the rows again; a file database is reopened and counted.
+ * - point reads by random id, full scans in id order
+ * - single-row updates and inserts, each committed on its own (the durability cost of a write)
+ * The scratch databases are removed afterwards.
+ */
+@Service
+@Slf4j
+public class ProductStorageBenchmarkService {
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (id, name, description, price, stock_quantity, last_updated, created_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String SELECT_BY_ID =
+            "SELECT id, name, description, price, stock_quantity, external_api_response, last_updated, version " +
+            "FROM products WHERE id = ?";
+
+    private static final String SELECT_ALL_ORDERED_BY_ID =
+            "SELECT id, name, description, price, stock_quantity, external_api_response, last_updated, version " +
+            "FROM products ORDER BY id";
+
+    private static final String TOUCH_PRODUCT =
+            "UPDATE products SET last_updated = ?, version = version + 1 WHERE id = ?";
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int SCANS = 3;
+    private static final int WARMUP_ROWS = 2000;
+
+    private final ProductBenchmarkService productBenchmarkService;
+    private final ResourceLoader resourceLoader;
+    private final String schemaLocation;
+    private final int defaultCacheSizeKb;
+    private final int defaultWriteDelayMs;
+    private final boolean defaultCompress;
+    private final int maxRows;
+    private final int maxOperations;
+
+    public ProductStorageBenchmarkService(ProductBenchmarkService productBenchmarkService,
+                                          ResourceLoader resourceLoader,
+                                          @Value("${spring.sql.init.schema-locations:classpath:schema.sql}") String schemaLocation,
+                                          @Value("${product.storage.file.cache-size-kb:65536}") int defaultCacheSizeKb,
+                                          @Value("${product.storage.file.write-delay-ms:500}") int defaultWriteDelayMs,
+                                          @Value("${product.storage.file.compress:false}") boolean defaultCompress,
+                                          @Value("${product.storage-benchmark.max-rows:1000000}") int maxRows,
+                                          @Value("${product.storage-benchmark.max-operations:1000000}") int maxOperations) {
+        this.productBenchmarkService = productBenchmarkService;
+        this.resourceLoader = resourceLoader;
+        this.schemaLocation = schemaLocation;
+        this.defaultCacheSizeKb = defaultCacheSizeKb;
+        this.defaultWriteDelayMs = defaultWriteDelayMs;
+        this.defaultCompress = defaultCompress;
+        this.maxRows = maxRows;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * Runs the workload on an in-memory and a file-backed database; settings left null use the
+     * product.storage.file.* values of the persistent profile
+     *
+     * @throws IllegalArgumentException if a count or file setting is out of range
+     */
+    public Map<String, Object> compareInMemoryVsFile(int rows, int reads, int writes,
+                                                     Integer cacheSizeKb, Integer writeDelayMs, Boolean compress) {
+        if (rows < 1 || rows > maxRows) {
+            throw new IllegalArgumentException("rows must be between 1 and " + maxRows);
+        }
+        if (reads < 1 || reads > maxOperations || writes < 1 || writes > maxOperations) {
+            throw new IllegalArgumentException("reads and writes must be between 1 and " + maxOperations);
+        }
+        if (cacheSizeKb != null && cacheSizeKb < 1) {
+            throw new IllegalArgumentException("cacheSizeKb must be at least 1");
+        }
+        if (writeDelayMs != null && writeDelayMs < 0) {
+            throw new IllegalArgumentException("writeDelayMs must not be negative");
+        }
+        int cache = cacheSizeKb != null ? cacheSizeKb : defaultCacheSizeKb;
+        int writeDelay = writeDelayMs != null ? writeDelayMs : defaultWriteDelayMs;
+        boolean compressed = compress != null ? compress : defaultCompress;
+        return productBenchmarkService.onPlatformThread(() -> doCompare(rows, reads, writes, cache, writeDelay, compressed));
+    }
+
+    private Map<String, Object> doCompare(int rows, int reads, int writes, int cacheSizeKb, int writeDelayMs, boolean compress) {
+        log.info("Running storage benchmark: {} rows, {} reads, {} writes (file: cache {}KB, write delay {}ms, compress {})",
+                rows, reads, writes, cacheSizeKb, writeDelayMs, compress);
+
+        // Warm-up pass, discarded, so JIT compilation does not count against whichever mode runs first
+        runWorkload("jdbc:h2:mem:storage_benchmark_warmup_" + System.nanoTime(), null,
+                Math.min(rows, WARMUP_ROWS), Math.min(reads, WARMUP_ROWS), Math.min(writes, WARMUP_ROWS));
+
+        String memoryUrl = "jdbc:h2:mem:storage_benchmark_" + System.nanoTime();
+        Map<String, Object> memory = runWorkload(memoryUrl, null, rows, reads, writes);
+
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("h2-storage-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Object> file;
+        try {
+            String fileUrl = "jdbc:h2:file:" + directory.resolve("products") + ";CACHE_SIZE=" + cacheSizeKb
+                    + ";WRITE_DELAY=" + writeDelayMs + ";COMPRESS=" + String.valueOf(compress).toUpperCase();
+            file = runWorkload(fileUrl, directory, rows, reads, writes);
+        } finally {
+            deleteRecursively(directory);
+        }
+
+        Map<String, Object> fileSettings = new LinkedHashMap<>();
+        fileSettings.put("cacheSizeKb", cacheSizeKb);
+        fileSettings.put("writeDelayMs", writeDelayMs);
+        fileSettings.put("compress", compress);
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("loadRowsPerSecondChangePercent", percentChange(memory, file, "load", "rowsPerSecond"));
+        comparison.put("startupMsChangePercent", percentChange(memory, file, "startup", "elapsedMs"));
+        comparison.put("pointReadOpsPerSecondChangePercent", percentChange(memory, file, "pointReads", "opsPerSecond"));
+        comparison.put("scanMsChangePercent", percentChange(memory, file, "fullScan", "avgMs"));
+        comparison.put("updateOpsPerSecondChangePercent", percentChange(memory, file, "updates", "opsPerSecond"));
+        comparison.put("insertOpsPerSecondChangePercent", percentChange(memory, file, "inserts", "opsPerSecond"));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rows", rows);
+        result.put("fileSettings", fileSettings);
+        result.put("inMemory", memory);
+        result.put("file", file);
+        result.put("fileVsInMemory", comparison);
+        result.put("timestamp", System.currentTimeMillis());
+        return result;
+    }
+
+    /**
+     * @param directory directory of a file database, or null for an in-memory one
+     */
+    private Map<String, Object> runWorkload(String url, Path directory, int rows, int reads, int writes) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        SingleConnectionDataSource dataSource = open(url);
+        try {
+            long loadStart = System.nanoTime();
+            createSchema(dataSource);
+            load(new JdbcTemplate(dataSource), 1, rows);
+            result.put("load", throughput(rows, System.nanoTime() - loadStart, "rowsPerSecond"));
+
+            if (directory != null) {
+                // A file database survives the restart: close it and time the reopen to the first query
+                shutdown(dataSource);
+                long reopenStart = System.nanoTime();
+                dataSource = open(url);
+                Long count = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM products", Long.class);
+                result.put("startup", startup("reopen existing file", System.nanoTime() - reopenStart, count));
+            } else {
+                // An in-memory database starts empty: startup is schema creation plus reloading the rows
+                String restartUrl = url + "_restart";
+                SingleConnectionDataSource restarted = open(restartUrl);
+                try {
+                    long restartStart = System.nanoTime();
+                    createSchema(restarted);
+                    load(new JdbcTemplate(restarted), 1, rows);
+                    result.put("startup", startup("create schema and reload rows", System.nanoTime() - restartStart, rows));
+                } finally {
+                    shutdown(restarted);
+                }
+            }
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            SplittableRandom random = new SplittableRandom(42);
+            long[] readIds = random.longs(reads, 1, rows + 1L).toArray();
+            result.put("pointReads", timed(readIds, id -> jdbcTemplate.queryForList(SELECT_BY_ID, id)));
+
+            long scanStart = System.nanoTime();
+            for (int i = 0; i < SCANS; i++) {
+                jdbcTemplate.query(SELECT_ALL_ORDERED_BY_ID, rs -> { });
+            }
+            Map<String, Object> scan = new LinkedHashMap<>();
+            scan.put("scans", SCANS);
+            scan.put("avgMs", Math.round((System.nanoTime() - scanStart) / 1_000_000.0 / SCANS * 10) / 10.0);
+            result.put("fullScan", scan);
+
+            long[] updateIds = random.longs(writes, 1, rows + 1L).toArray();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            result.put("updates", timed(updateIds, id -> jdbcTemplate.update(TOUCH_PRODUCT, now, id)));
+
+            long[] insertIds = new long[writes];
+            for (int i = 0; i < writes; i++) {
+                insertIds[i] = rows + 1L + i;
+            }
+            result.put("inserts", timed(insertIds, id -> jdbcTemplate.update(INSERT_PRODUCT, productArgs(id, now))));
+
+            if (directory != null) {
+                shutdown(dataSource);
+                dataSource = null;
+                result.put("fileSizeBytes", sizeOf(directory));
+            }
+        } finally {
+            if (dataSource != null) {
+                shutdown(dataSource);
+            }
+        }
+        return result;
+    }
+
+    private SingleConnectionDataSource open(String url) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url, "sa", "", true);
+        dataSource.setAutoCommit(true);
+        return dataSource;
+    }
+
+    private void createSchema(SingleConnectionDataSource dataSource) {
+        new ResourceDatabasePopulator(resourceLoader.getResource(schemaLocation)).execute(dataSource);
+    }
+
+    /**
+     * Inserts count products in JDBC batches of LOAD_BATCH_SIZE rows, one commit per batch
+     */
+    private void load(JdbcTemplate jdbcTemplate, long firstId, int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        for (long id = firstId; id < firstId + count; id++) {
+            batch.add(productArgs(id, now));
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_PRODUCT, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT, batch);
+        }
+    }
+
+    private static Object[] productArgs(long id, Timestamp now) {
+        return new Object[]{id, "Benchmark Product " + id,
+                "Product " + id + " of the storage benchmark with a description about as long as the sample data",
+                10 + (id * 7919 % 99_000) / 100.0, (int) (id * 31 % 1000), now, now};
+    }
+
+    private static void shutdown(SingleConnectionDataSource dataSource) {
+        // SHUTDOWN closes the database (flushing a file database to disk) even though the connection stays open
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    private static Map<String, Object> timed(long[] ids, LongConsumer operation) {
+        LatencyHistogram latency = new LatencyHistogram();
+        long start = System.nanoTime();
+        for (long id : ids) {
+            long operationStart = System.nanoTime();
+            operation.accept(id);
+            latency.recordNanos(System.nanoTime() - operationStart);
+        }
+        Map<String, Object> stats = throughput(ids.length, System.nanoTime() - start, "opsPerSecond");
+        stats.put("latency", latency.toMap());
+        return stats;
+    }
+
+    private static Map<String, Object> throughput(long operations, long elapsedNanos, String rateName) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("operations", operations);
+        stats.put("elapsedMs", Math.round(elapsedNanos / 100_000.0) / 10.0);
+        stats.put(rateName, elapsedNanos > 0 ? Math.round(operations * 1_000_000_000.0 / elapsedNanos) : operations);
+        return stats;
+    }
+
+    private static Map<String, Object> startup(String mode, long elapsedNanos, long rows) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode);
+        stats.put("elapsedMs", Math.round(elapsedNanos / 100_000.0) / 10.0);
+        stats.put("rows", rows);
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double percentChange(Map<String, Object> memory, Map<String, Object> file, String section, String key) {
+        double before = ((Number) ((Map<String, Object>) memory.get(section)).get(key)).doubleValue();
+        double after = ((Number) ((Map<String, Object>) file.get(section)).get(key)).doubleValue();
+        return before > 0 ? Math.round((after - before) * 1000.0 / before) / 10.0 : 0.0;
+    }
+
+    private static long sizeOf(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not delete storage benchmark directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.connectionpool.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generation of the products table, the validator behind the product list ETag.
+ *
+ * Every write path of the application (create, bulk insert, group commit, process, touch, delete,
+ * data generator) calls {@link #bump()} after its write, so the generation changes whenever the
+ * table does. Inside a transaction the bump waits for the transaction to complete: a reader can
+ * then only pair the new rows with the old generation (an ETag older than the body, answered 200
+ * on the next request), never old rows with the new one. The boot time is part of the value, so a
+ * tag handed out before a restart (which reloads the in-memory database) never matches again.
+ * Writes made outside the application, e.g. through the H2 console, are not seen.
+ */
+@Component
+public class ProductTableGeneration {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Marks the table as changed, once the surrounding transaction (if any) has completed
+     */
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                }
+            });
+            return;
+        }
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Current generation, unique across restarts
+     */
+    public String current() {
+        return epoch + "-" + generation.get();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for last_updated touches.
+ *
+ * A touch only records the newest timestamp per product id in memory. A background flusher
+ * writes all buffered ids as one JDBC batch every flush interval, or as soon as the buffer
+ * holds max-entries ids. Many touches of a hot id between two flushes cost one row write, and
+ * the request that touched the product never borrows a connection for it.
+ *
+ * Trade-off: lastUpdated becomes visible to readers up to one flush interval late.
+ * Buffered touches are flushed on shutdown; a crash loses at most one interval of touches.
+ */
+@Component
+@Slf4j
+public class ProductTouchBuffer {
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductCache productCache;
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<Long, Touch> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "product-touch-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder touches = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final AtomicLong lastFlushSize = new AtomicLong();
+    private final AtomicLong lastFlushMs = new AtomicLong();
+    private final AtomicLong lastFlushMaxLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    public ProductTouchBuffer(ProductJdbcRepository productJdbcRepository,
+                              ProductCache productCache,
+                              @Value("${product.touch.write-behind.enabled:true}") boolean enabled,
+                              @Value("${product.touch.flush-interval-ms:500}") long flushIntervalMs,
+                              @Value("${product.touch.flush-max-entries:1000}") int maxEntries) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.productCache = productCache;
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxEntries = maxEntries;
+        if (enabled) {
+            flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("Product touch write-behind {} (flush every {}ms or {} entries)",
+                enabled ? "enabled" : "disabled", flushIntervalMs, maxEntries);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records that the product was touched now; keeps only the newest time per id
+     */
+    public void touch(Long id) {
+        touches.increment();
+        Touch touch = new Touch(LocalDateTime.now(), System.nanoTime());
+        // Keep the first touch time of a pending entry so lag covers its whole stay in the buffer
+        pending.merge(id, touch, (older, newer) -> new Touch(newer.lastUpdated, older.bufferedAtNanos));
+
+        if (pending.size() >= maxEntries && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushSafely);
+        }
+    }
+
+    /**
+     * Writes every buffered touch; only ever runs on the flusher thread (or at shutdown)
+     */
+    void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long oldestNanos = now;
+        Map<Long, Touch> taken = new HashMap<>();
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Long id : pending.keySet()) {
+            // remove() hands over exactly one value; a touch arriving afterwards starts a new entry
+            Touch touch = pending.remove(id);
+            if (touch != null) {
+                taken.put(id, touch);
+                batch.put(id, touch.lastUpdated);
+                oldestNanos = Math.min(oldestNanos, touch.bufferedAtNanos);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int updated;
+        try {
+            updated = productJdbcRepository.updateLastUpdatedBatch(batch);
+        } catch (RuntimeException e) {
+            // Put the touches back (newer touches that arrived meanwhile win) so the next flush retries them
+            taken.forEach((id, touch) -> pending.merge(id, touch,
+                    (newer, older) -> new Touch(newer.lastUpdated, older.bufferedAtNanos)));
+            throw e;
+        }
+        batch.keySet().forEach(productCache::invalidate);
+
+        long lagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestNanos);
+        flushes.increment();
+        rowsWritten.add(updated);
+        lastFlushSize.set(batch.size());
+        lastFlushMs.set(System.currentTimeMillis() - start);
+        lastFlushMaxLagMs.set(lagMs);
+        maxLagMs.accumulateAndGet(lagMs, Math::max);
+        log.debug("Flushed {} product touches ({} rows) in {}ms, max lag {}ms",
+                batch.size(), updated, lastFlushMs.get(), lagMs);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.error("Failed to flush product touches: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write-behind statistics for the monitoring endpoint
+     */
+    public Map<String, Object> getStats() {
+        long oldestPendingNanos = pending.values().stream()
+                .mapToLong(Touch::bufferedAtNanos)
+                .min()
+                .orElse(System.nanoTime());
+        long touchCount = touches.sum();
+        long rows = rowsWritten.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("flushIntervalMs", flushIntervalMs);
+        stats.put("maxEntries", maxEntries);
+        stats.put("touches", touchCount);
+        stats.put("pending", pending.size());
+        stats.put("oldestPendingLagMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestPendingNanos));
+        stats.put("flushes", flushes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("rowsWritten", rows);
+        stats.put("writesSaved", Math.max(0, touchCount - rows - pending.size()));
+        stats.put("lastFlushSize", lastFlushSize.get());
+        stats.put("lastFlushMs", lastFlushMs.get());
+        stats.put("lastFlushMaxLagMs", lastFlushMaxLagMs.get());
+        stats.put("maxLagMs", maxLagMs.get());
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int buffered = pending.size();
+        flushSafely();
+        log.info("Product touch buffer flushed {} pending touches on shutdown", buffered);
+    }
+
+    private record Touch(LocalDateTime lastUpdated, long bufferedAtNanos) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.dto.ProductRequest;
+import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.entity.Product;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.repository.ShardedProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Product operations against the sharded store (product.sharding.enabled=true).
+ * Single-product operations touch one shard; list queries fan out to all of them.
+ */
+@Service
+@ConditionalOnProperty(name = "product.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedProductService {
+
+    private final ShardedProductRepository shardedProductRepository;
+
+    public ProductResponse getProductById(Long id) {
+        Product product = shardedProductRepository.findById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        return ProductService.mapToResponse(product, null);
+    }
+
+    public ProductResponse createProduct(ProductRequest request) {
+        Product product = new Product();
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setPrice(request.getPrice());
+        product.setStockQuantity(request.getStockQuantity());
+
+        Product savedProduct = shardedProductRepository.save(product);
+        log.info("Sharded product created with ID: {}", savedProduct.getId());
+        return ProductService.mapToResponse(savedProduct, "Product created successfully");
+    }
+
+    public List<ProductResponse> getAllProducts() {
+        return toResponses(shardedProductRepository.findAll());
+    }
+
+    public List<ProductResponse> getProductsInStock(Integer minQuantity) {
+        return toResponses(shardedProductRepository.findByStockQuantityGreaterThan(minQuantity));
+    }
+
+    public List<ProductResponse> getProductsUnderPrice(Double maxPrice) {
+        return toResponses(shardedProductRepository.findProductsUnderPrice(maxPrice));
+    }
+
+    private static List<ProductResponse> toResponses(List<Product> products) {
+        return products.stream().map(product -> ProductService.mapToResponse(product, null)).toList();
+    }
+}
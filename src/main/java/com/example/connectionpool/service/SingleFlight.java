@@ -0,0 +1,88 @@
+package com.example.connectionpool.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: concurrent callers asking for the same key while a call for it is
+ * still running are handed that call's future instead of starting their own.
+ *
+ * Nothing is cached. The key leaves the in-flight map as soon as its call completes, so the
+ * next caller after completion starts a fresh call and always sees current data.
+ */
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Runs the call for the key, or joins the one already in flight.
+     * Each caller gets its own copy of the shared future, so completing or cancelling it
+     * cannot affect the other callers.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        calls.increment();
+
+        CompletableFuture<V> placeholder = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            log.debug("[SINGLE-FLIGHT:{}] Joining in-flight call for key {}", name, key);
+            return existing.copy();
+        }
+
+        executions.increment();
+        CompletableFuture<V> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            // Synchronous failures are delivered through the future like asynchronous ones
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((value, error) -> {
+            // Removed before completing so a caller arriving after completion starts a new call
+            inFlight.remove(key, placeholder);
+            if (error != null) {
+                placeholder.completeExceptionally(error);
+            } else {
+                placeholder.complete(value);
+            }
+        });
+        return placeholder.copy();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Dedup ratio = share of calls that joined an in-flight call instead of executing their own
+     */
+    public Map<String, Object> getStats() {
+        long callCount = calls.sum();
+        long executionCount = executions.sum();
+        long shared = callCount - executionCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("calls", callCount);
+        stats.put("executions", executionCount);
+        stats.put("sharedCalls", shared);
+        stats.put("dedupRatio", callCount > 0 ? Math.round(shared * 1000.0 / callCount) / 10.0 : 0.0);
+        stats.put("inFlight", inFlightCount());
+        return stats;
+    }
+}
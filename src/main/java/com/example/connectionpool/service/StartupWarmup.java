@@ -0,0 +1,303 @@
+package com.example.connectionpool.service;
+
+import com.example.connectionpool.dto.ProductResponse;
+import com.example.connectionpool.dto.ProductView;
+import com.example.connectionpool.exception.ProductNotFoundException;
+import com.example.connectionpool.repository.ProductJdbcRepository;
+import com.example.connectionpool.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Warm-up stage between startup and readiness.
+ *
+ * Runs as an ApplicationReadyEvent listener after the ones that load data (ProductIdIndex and
+ * ProductDataGenerator have explicit higher precedence). Spring Boot only switches readiness to
+ * ACCEPTING_TRAFFIC once every listener has returned, so the readiness probe refuses traffic until
+ * the warm-up is done; this class is also a health indicator reporting OUT_OF_SERVICE meanwhile.
+ * - every Hikari pool is filled to pool-target connections instead of growing from minimum-idle
+ *   while the first requests wait
+ * - the main read paths (JPA entity, JPQL projection, JDBC, keyset pages, the cached product JSON)
+ *   and the Jackson serialization of products and pages run iterations times, so query plans are
+ *   cached and the hot methods are JIT-compiled before the first request
+ * Afterwards the product cache, hold-time and admission statistics are reset, so they only show real
+ * traffic (cached entries stay), and the latency of the first first-requests product API requests is
+ * recorded, to show what the first users actually get.
+ */
+@Component
+@Slf4j
+public class StartupWarmup implements HealthIndicator {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_IDS = 10;
+
+    private final HikariPools hikariPools;
+    private final ProductRepository productRepository;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final ProductCache productCache;
+    private final ConnectionHoldTimeTracker connectionHoldTimeTracker;
+    private final DatabaseAdmissionLimiter databaseAdmissionLimiter;
+    private final boolean enabled;
+    private final int poolTarget;
+    private final int iterations;
+    private final int firstRequests;
+
+    private volatile String state = "pending";
+    private volatile long startedAt;
+    private volatile long durationMs = -1;
+    private volatile String failure;
+    private final Map<String, Object> poolFill = new LinkedHashMap<>();
+    private final Map<String, Object> operations = new LinkedHashMap<>();
+
+    private final LatencyHistogram firstRequestLatency = new LatencyHistogram();
+    private final AtomicInteger requestsRecorded = new AtomicInteger();
+    private final AtomicLong firstRequestMicros = new AtomicLong(-1);
+
+    public StartupWarmup(HikariPools hikariPools,
+                         ProductRepository productRepository,
+                         ProductJdbcRepository productJdbcRepository,
+                         ProductService productService,
+                         ObjectMapper objectMapper,
+                         ProductCache productCache,
+                         ConnectionHoldTimeTracker connectionHoldTimeTracker,
+                         DatabaseAdmissionLimiter databaseAdmissionLimiter,
+                         @Value("${startup.warmup.enabled:true}") boolean enabled,
+                         @Value("${startup.warmup.pool-target:10}") int poolTarget,
+                         @Value("${startup.warmup.iterations:200}") int iterations,
+                         @Value("${startup.warmup.first-requests:100}") int firstRequests) {
+        this.hikariPools = hikariPools;
+        this.productRepository = productRepository;
+        this.productJdbcRepository = productJdbcRepository;
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.productCache = productCache;
+        this.connectionHoldTimeTracker = connectionHoldTimeTracker;
+        this.databaseAdmissionLimiter = databaseAdmissionLimiter;
+        this.enabled = enabled;
+        this.poolTarget = poolTarget;
+        this.iterations = iterations;
+        this.firstRequests = firstRequests;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            state = "disabled";
+            log.info("Startup warm-up disabled");
+            return;
+        }
+        state = "running";
+        startedAt = System.currentTimeMillis();
+        log.info("Warming up before accepting traffic: pools to {} connections, {} iterations per operation",
+                poolTarget, iterations);
+        try {
+            fillPools();
+            runOperations();
+            resetStats();
+            state = "done";
+        } catch (RuntimeException e) {
+            // A failed warm-up only costs latency; the application is still ready to serve
+            failure = e.getMessage();
+            state = "failed";
+            log.warn("Startup warm-up failed, continuing without it: {}", e.getMessage());
+        }
+        durationMs = System.currentTimeMillis() - startedAt;
+        log.info("Startup warm-up {} in {}ms", state, durationMs);
+    }
+
+    /**
+     * Borrows pool-target connections from every pool at once, so each pool opens them now
+     */
+    private void fillPools() {
+        for (HikariDataSource pool : hikariPools.getAll()) {
+            int target = Math.min(poolTarget, pool.getMaximumPoolSize());
+            long start = System.currentTimeMillis();
+            List<Connection> connections = new ArrayList<>(target);
+            try {
+                for (int i = 0; i < target; i++) {
+                    connections.add(pool.getConnection());
+                }
+            } catch (SQLException e) {
+                log.warn("Could not fill pool {} to {} connections: {}", pool.getPoolName(), target, e.getMessage());
+            } finally {
+                for (Connection connection : connections) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        log.debug("Closing warm-up connection failed: {}", e.getMessage());
+                    }
+                }
+            }
+            Map<String, Object> fill = new HashMap<>();
+            fill.put("target", target);
+            fill.put("opened", connections.size());
+            fill.put("totalConnections", pool.getHikariPoolMXBean() != null
+                    ? pool.getHikariPoolMXBean().getTotalConnections() : connections.size());
+            fill.put("elapsedMs", System.currentTimeMillis() - start);
+            poolFill.put(pool.getPoolName(), fill);
+            log.info("Pool {} filled to {} connections in {}ms", pool.getPoolName(), connections.size(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    private void runOperations() {
+        long maxId = Math.max(1, productRepository.count());
+        List<ProductView> page = productRepository.findViewsOrderedById(Limit.of(PAGE_SIZE));
+        List<ProductResponse> pageResponses = page.stream().map(view -> ProductService.mapToResponse(view, null)).toList();
+
+        Map<String, LongConsumer> paths = new LinkedHashMap<>();
+        paths.put("jpaEntityById", id -> productRepository.findById(id));
+        paths.put("jpqlViewById", id -> productRepository.findViewById(id));
+        paths.put("jdbcViewById", id -> productJdbcRepository.findViewById(id));
+        paths.put("jdbcViewsByIds", id -> productJdbcRepository.findViewsByIds(
+                LongStream.range(id, id + BATCH_IDS).boxed().toList()));
+        paths.put("keysetPageById", id -> productRepository.findViewsOrderedByIdAfter(id, Limit.of(PAGE_SIZE)));
+        paths.put("keysetPageByPrice", id -> productRepository.findViewsOrderedByPrice(Limit.of(PAGE_SIZE)));
+        paths.put("productJsonById", id -> {
+            try {
+                productService.getProductJsonById(id);
+            } catch (ProductNotFoundException e) {
+                // Deleted ids are part of the real workload too
+            }
+        });
+        paths.put("serializeProduct", id -> serialize(pageResponses.get((int) (id % pageResponses.size()))));
+        paths.put("serializePage", id -> serialize(pageResponses));
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (Map.Entry<String, LongConsumer> path : paths.entrySet()) {
+            if (pageResponses.isEmpty() && path.getKey().startsWith("serialize")) {
+                continue;
+            }
+            operations.put(path.getKey(), run(path.getValue(), random.longs(iterations, 1, maxId + 1).toArray()));
+        }
+    }
+
+    /**
+     * Drops the warm-up's own lookups, borrows and admissions from the statistics
+     */
+    private void resetStats() {
+        productCache.resetStats();
+        connectionHoldTimeTracker.reset();
+        databaseAdmissionLimiter.resetStats();
+    }
+
+    /**
+     * Runs the operation once per id; reports the first (cold) call against the mean of the last tenth
+     */
+    private Map<String, Object> run(LongConsumer operation, long[] ids) {
+        long start = System.nanoTime();
+        long firstNanos = 0;
+        long tailNanos = 0;
+        int tailStart = ids.length - Math.max(1, ids.length / 10);
+        for (int i = 0; i < ids.length; i++) {
+            long callStart = System.nanoTime();
+            operation.accept(ids[i]);
+            long elapsed = System.nanoTime() - callStart;
+            if (i == 0) {
+                firstNanos = elapsed;
+            }
+            if (i >= tailStart) {
+                tailNanos += elapsed;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("iterations", ids.length);
+        stats.put("firstCallMs", toMillis(firstNanos));
+        stats.put("warmedMeanMs", toMillis(tailNanos / (double) Math.max(1, ids.length - tailStart)));
+        stats.put("totalMs", toMillis(System.nanoTime() - start));
+        return stats;
+    }
+
+    private void serialize(Object value) {
+        try {
+            objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Records the latency of one product API request, for the first first-requests requests after the warm-up
+     */
+    public void recordRequest(long nanos) {
+        if (!isFinished() || requestsRecorded.get() >= firstRequests) {
+            return;
+        }
+        int index = requestsRecorded.getAndIncrement();
+        if (index >= firstRequests) {
+            return;
+        }
+        if (index == 0) {
+            firstRequestMicros.set(nanos / 1000);
+        }
+        firstRequestLatency.recordNanos(nanos);
+    }
+
+    private boolean isFinished() {
+        return !"pending".equals(state) && !"running".equals(state);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = isFinished() ? Health.up() : Health.outOfService();
+        builder.withDetail("state", state);
+        if (durationMs >= 0) {
+            builder.withDetail("durationMs", durationMs);
+        } else if ("running".equals(state)) {
+            builder.withDetail("runningForMs", System.currentTimeMillis() - startedAt);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Warm-up outcome, cold vs warmed latency per operation and first-request latency
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> firstRequestStats = firstRequestLatency.toMap();
+        firstRequestStats.put("firstRequestMs", firstRequestMicros.get() >= 0 ? firstRequestMicros.get() / 1000.0 : null);
+        firstRequestStats.put("window", firstRequests);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("state", state);
+        stats.put("durationMs", durationMs);
+        stats.put("poolTarget", poolTarget);
+        stats.put("iterations", iterations);
+        stats.put("pools", poolFill);
+        stats.put("operations", operations);
+        stats.put("firstRequests", firstRequestStats);
+        if (failure != null) {
+            stats.put("failure", failure);
+        }
+        stats.put("timestamp", System.currentTimeMillis());
+        return stats;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.connectionpool.service;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Collects items into batches and hands each batch to a dispatcher once it is full or its window,
+ * opened by the first item, has elapsed.
+ *
+ * Items are collected per group (callers that must not share a batch use different groups) and
+ * keyed within a batch: adding a key that is already waiting in the open batch of its group returns
+ * the waiting item instead, so duplicates coalesce. Batches keep insertion order.
+ * The dispatcher is called on the adding thread (full batch) or on the window timer thread, so it
+ * should hand the batch off to an executor rather than run the work itself.
+ *
+ * Used by ProductBatchLoader (lookups, grouped by bulkhead) and ProductGroupCommitter (creates).
+ */
+public class WindowedBatcher<G, K, V> {
+
+    /**
+     * Receives each closed batch
+     */
+    @FunctionalInterface
+    public interface Dispatcher<G, K, V> {
+        void dispatch(G group, Map<K, V> batch);
+    }
+
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final Dispatcher<G, K, V> dispatcher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<G, OpenBatch> open = new HashMap<>();
+    private final ScheduledExecutorService windowTimer;
+
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder batchesDispatched = new LongAdder();
+    private final LongAdder batchesFull = new LongAdder();
+    private final LongAdder itemsDispatched = new LongAdder();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    public WindowedBatcher(String name, long windowMicros, int maxBatchSize, Dispatcher<G, K, V> dispatcher) {
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.dispatcher = dispatcher;
+        this.windowTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-window");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds an item to the open batch of its group, or returns the item already waiting under the key
+     */
+    public V add(G group, K key, Supplier<V> item) {
+        Map<K, V> fullBatch = null;
+        V value;
+
+        lock.lock();
+        try {
+            OpenBatch batch = open.computeIfAbsent(group, g -> new OpenBatch());
+            value = batch.items.get(key);
+            if (value != null) {
+                duplicates.increment();
+                return value;
+            }
+            value = item.get();
+            batch.items.put(key, value);
+
+            if (batch.items.size() >= maxBatchSize) {
+                fullBatch = batch.take();
+                batchesFull.increment();
+            } else if (batch.items.size() == 1) {
+                // First item of a new batch opens the window
+                long generation = batch.generation;
+                windowTimer.schedule(() -> flushWindow(group, batch, generation), windowMicros, TimeUnit.MICROSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (fullBatch != null) {
+            dispatch(group, fullBatch);
+        }
+        return value;
+    }
+
+    private void flushWindow(G group, OpenBatch batch, long generation) {
+        Map<K, V> items = null;
+        lock.lock();
+        try {
+            // The batch this timer was opened for may already have been dispatched because it filled up
+            if (generation == batch.generation && !batch.items.isEmpty()) {
+                items = batch.take();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (items != null) {
+            dispatch(group, items);
+        }
+    }
+
+    private void dispatch(G group, Map<K, V> batch) {
+        batchesDispatched.increment();
+        itemsDispatched.add(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        dispatcher.dispatch(group, batch);
+    }
+
+    /**
+     * Stops the window timer and dispatches every open batch, so no caller waits on a window that never closes
+     */
+    public void shutdown() {
+        windowTimer.shutdownNow();
+        List<Map.Entry<G, Map<K, V>>> batches = new ArrayList<>();
+        lock.lock();
+        try {
+            open.forEach((group, batch) -> {
+                if (!batch.items.isEmpty()) {
+                    batches.add(new AbstractMap.SimpleImmutableEntry<>(group, batch.take()));
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        batches.forEach(entry -> dispatch(entry.getKey(), entry.getValue()));
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public long getBatchesDispatched() {
+        return batchesDispatched.sum();
+    }
+
+    public long getBatchesFull() {
+        return batchesFull.sum();
+    }
+
+    public long getItemsDispatched() {
+        return itemsDispatched.sum();
+    }
+
+    public long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    /**
+     * Items collected for one group; guarded by the batcher's lock
+     */
+    private final class OpenBatch {
+
+        private Map<K, V> items = new LinkedHashMap<>();
+        private long generation;
+
+        private Map<K, V> take() {
+            Map<K, V> batch = items;
+            items = new LinkedHashMap<>();
+            generation++;
+            return batch;
+        }
+    }
+}
@@ -7,7 +7,8 @@ CREATE TABLE IF NOT EXISTS products (
     stock_quantity INTEGER NOT NULL,
     external_api_response CLOB,
     last_updated TIMESTAMP,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0 NOT NULL
 );
 
 -- Create indexes for better query performance